@@ -0,0 +1,45 @@
+// Read-heavy mix against a running backend, ramping to 5000 concurrent clients.
+//
+// Compare the two request execution modes on the same machine and database:
+//   VIRTUAL_THREADS=false ./mvnw spring-boot:run    then  k6 run loadtest/read-mix.js
+//   VIRTUAL_THREADS=true  ./mvnw spring-boot:run    then  k6 run loadtest/read-mix.js
+// and compare http_reqs (throughput), http_req_duration p(99) and http_req_failed.
+// While it runs, /actuator/prometheus on the management port shows hikaricp_connections_pending
+// and jvm_threads_virtual_pinned, which tell whether the pool or pinning is the limit.
+//
+// Options: BASE_URL (default http://localhost:8080), USER_ID and CARD_ID of existing rows
+// (default 1), PEAK_VUS (default 5000).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USER_ID = __ENV.USER_ID || '1';
+const CARD_ID = __ENV.CARD_ID || '1';
+const PEAK_VUS = parseInt(__ENV.PEAK_VUS || '5000', 10);
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: PEAK_VUS },
+                { duration: '2m', target: PEAK_VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/cards?limit=50`, null, { tags: { name: 'cards page' } }],
+        ['GET', `${BASE_URL}/api/cards/${CARD_ID}`, null, { tags: { name: 'card by id' } }],
+        ['GET', `${BASE_URL}/api/users/${USER_ID}/cards`, null, { tags: { name: 'user cards' } }],
+    ]);
+    for (const response of responses) {
+        check(response, { 'not a server error': (r) => r.status < 500 });
+    }
+}
@@ -0,0 +1,86 @@
+package com.app.prueba.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.models.User;
+import com.app.prueba.services.AuthService;
+
+/**
+ * AuthService.login and register end to end: credential lookup, BCrypt on the
+ * hashing executor, the insert on register and token signing. Run at the
+ * production BCrypt cost by default, since hashing dominates both paths.
+ * loginUnknownUser is answered by the identifier filter without a query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    @Param({ "10" })
+    private int bcryptStrength;
+
+    private ConfigurableApplicationContext context;
+
+    private AuthService authService;
+
+    private User credentials;
+
+    private User unknownCredentials;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("auth" + bcryptStrength,
+                "security.password.bcrypt-strength=" + bcryptStrength);
+        authService = context.getBean(AuthService.class);
+        authService.register(BenchmarkApplication.user(counter.incrementAndGet()));
+
+        credentials = new User();
+        credentials.setUsername("benchmark1");
+        credentials.setPassword("password");
+
+        unknownCredentials = new User();
+        unknownCredentials.setUsername("unknown-benchmark-user");
+        unknownCredentials.setPassword("password");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> login() {
+        return authService.login(credentials);
+    }
+
+    @Benchmark
+    public Map<String, Object> loginUnknownUser() {
+        return authService.login(unknownCredentials);
+    }
+
+    @Benchmark
+    public Map<String, Object> register() {
+        return authService.register(BenchmarkApplication.user(counter.incrementAndGet()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.app.prueba.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.PruebaApplication;
+import com.app.prueba.models.User;
+
+/**
+ * Boots the application for benchmarks: the test profile's embedded H2 database,
+ * no web server and no SQL logging. Each benchmark gets its own in-memory
+ * database so parameter combinations do not share rows. Point
+ * spring.datasource.url at a local PostgreSQL through the extra properties to
+ * benchmark against it instead.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        List<String> defaults = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN"));
+        defaults.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(PruebaApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(defaults.toArray(String[]::new))
+                .run();
+    }
+
+    // Username, email and phone are unique columns, so all derive from n
+    static User user(long n) {
+        User user = new User();
+        user.setName("Benchmark");
+        user.setLastName("User");
+        user.setEmail("benchmark" + n + "@gmail.com");
+        user.setUsername("benchmark" + n);
+        user.setPassword("password");
+        user.setPhone(String.format("6%08d", n));
+        return user;
+    }
+}
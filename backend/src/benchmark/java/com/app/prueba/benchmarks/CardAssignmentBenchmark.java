@@ -0,0 +1,104 @@
+package com.app.prueba.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.services.AssignmentJob;
+import com.app.prueba.services.CardAssignmentService;
+
+/**
+ * A starter deck of 30 cards granted to 1,000 users: one bulk assignment job
+ * against one link upsert per user and card, the database work of a
+ * POST /api/users/{id}/cards per link. The links are deleted before each
+ * invocation, so every run inserts all 30,000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardAssignmentBenchmark {
+
+    private static final int USERS = 1000;
+
+    private static final int CARDS = 30;
+
+    private ConfigurableApplicationContext context;
+
+    private CardAssignmentService cardAssignmentService;
+
+    private UserCardsRepository userCardsRepository;
+
+    private final List<Integer> userIds = new ArrayList<>();
+
+    private final List<Integer> cardIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("cardassignment");
+        cardAssignmentService = context.getBean(CardAssignmentService.class);
+        userCardsRepository = context.getBean(UserCardsRepository.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userRepository.save(BenchmarkApplication.user(i)).getId());
+        }
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        for (int i = 0; i < CARDS; i++) {
+            Cards card = new Cards();
+            card.setName("Starter card " + i);
+            card.setDescription("Benchmark card");
+            cardIds.add(cardRepository.save(card).getId());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteLinks() {
+        userCardsRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AssignmentJob bulkAssignment() throws InterruptedException {
+        AssignmentJob job = cardAssignmentService.createJob(userIds, cardIds);
+        while (job.getStatus() == AssignmentJob.Status.PENDING || job.getStatus() == AssignmentJob.Status.RUNNING) {
+            Thread.sleep(1);
+        }
+        return job;
+    }
+
+    @Benchmark
+    public int linkPerRequest() {
+        int inserted = 0;
+        for (int userId : userIds) {
+            for (int cardId : cardIds) {
+                inserted += userCardsRepository.insertIfAbsent(userId, cardId);
+            }
+        }
+        return inserted;
+    }
+}
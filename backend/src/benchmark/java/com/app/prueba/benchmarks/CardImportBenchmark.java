@@ -0,0 +1,84 @@
+package com.app.prueba.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.app.prueba.controllers.CardController;
+import com.app.prueba.repositories.UserRepository;
+
+/**
+ * CardController.importCard for a single card file: multipart read, JSON
+ * parsing, validation and the inserts. Called on the controller bean, so the
+ * servlet stack is left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardImportBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private CardController cardController;
+
+    private int userId;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("cardimport");
+        cardController = context.getBean(CardController.class);
+        userId = context.getBean(UserRepository.class).save(BenchmarkApplication.user(0)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> importCard() {
+        // Card names are unique, so every import brings a new one
+        String json = "{\"name\":\"Imported " + counter.incrementAndGet() + "\",\"description\":\"Benchmark card\"}";
+        MockMultipartFile file = new MockMultipartFile("file", "card.json", "application/json",
+                json.getBytes(StandardCharsets.UTF_8));
+        return cardController.importCard(file, userId, null);
+    }
+
+    // A client retrying one import with an Idempotency-Key: the first call stores the card, the
+    // rest replay its response
+    @Benchmark
+    public ResponseEntity<?> retriedImportCard() {
+        return cardController.importCard(retriedFile(), userId, "retried-import");
+    }
+
+    // The same retries without a key: each one finds the card and upserts the existing link
+    @Benchmark
+    public ResponseEntity<?> retriedImportCardWithoutKey() {
+        return cardController.importCard(retriedFile(), userId, null);
+    }
+
+    private static MockMultipartFile retriedFile() {
+        return new MockMultipartFile("file", "card.json", "application/json",
+                "{\"name\":\"Retried import\",\"description\":\"Benchmark card\"}".getBytes(StandardCharsets.UTF_8));
+    }
+}
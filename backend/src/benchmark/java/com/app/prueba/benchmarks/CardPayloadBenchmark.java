@@ -0,0 +1,122 @@
+package com.app.prueba.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.dto.CardPayload;
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.services.CardService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * GET /api/cards/{id} body production: the entity cache plus Jackson (and
+ * gzip, as server.compression would do it) on every request, against the
+ * bytes kept in the cardPayloads cache. The gc profiler gives the allocations
+ * per response (gc.alloc.rate.norm); responseBytes / responses gives the body
+ * size per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardPayloadBenchmark {
+
+    // Description length; 255 is the column limit
+    @Param({ "40", "255" })
+    private int descriptionLength;
+
+    private ConfigurableApplicationContext context;
+
+    private CardService cardService;
+
+    private ObjectMapper objectMapper;
+
+    private int cardId;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseSize {
+
+        public long responseBytes;
+
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            responseBytes = 0;
+            responses = 0;
+        }
+
+        byte[] record(byte[] body) {
+            responseBytes += body.length;
+            responses++;
+            return body;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("cardpayload" + descriptionLength,
+                "cards.payload-cache.gzip-min-size=0");
+        cardService = context.getBean(CardService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        Cards card = new Cards();
+        card.setName("Benchmark card");
+        card.setDescription("Card description ".repeat(16).substring(0, descriptionLength));
+        cardId = (((CardView) cardService.createCard(card).get("card"))).id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serialize(ResponseSize size) throws IOException {
+        return size.record(objectMapper.writeValueAsBytes(cardService.getCardById(cardId)));
+    }
+
+    @Benchmark
+    public byte[] serializeGzip(ResponseSize size) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(cardService.getCardById(cardId));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        return size.record(compressed.toByteArray());
+    }
+
+    @Benchmark
+    public byte[] cachedPayload(ResponseSize size) {
+        return size.record(cardService.getCardPayload(cardId).json());
+    }
+
+    @Benchmark
+    public byte[] cachedPayloadGzip(ResponseSize size) {
+        // As the controller does: the gzip copy only exists when it is smaller
+        CardPayload payload = cardService.getCardPayload(cardId);
+        return size.record(payload.gzip() != null ? payload.gzip() : payload.json());
+    }
+}
@@ -0,0 +1,112 @@
+package com.app.prueba.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.CollectionVersion;
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.services.CardService;
+import com.app.prueba.services.UserService;
+
+/**
+ * Card read paths: CardService.getCardById through the cards cache, the same
+ * lookup straight from the repository as the cache miss cost, and for a user
+ * owning cardsPerUser cards: every card at once (findCardsByUserId), the
+ * first page of GET /api/users/{id}/cards, the same page with fields=id, and
+ * the cached total.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardReadBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({ "10", "100", "10000" })
+    private int cardsPerUser;
+
+    private ConfigurableApplicationContext context;
+
+    private CardService cardService;
+
+    private CardRepository cardRepository;
+
+    private UserService userService;
+
+    private int userId;
+
+    private int cardId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("cardread" + cardsPerUser);
+        cardService = context.getBean(CardService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        userService = context.getBean(UserService.class);
+
+        userId = context.getBean(UserRepository.class).save(BenchmarkApplication.user(0)).getId();
+        for (int i = 0; i < cardsPerUser; i++) {
+            Cards card = new Cards();
+            card.setName("Card " + i);
+            card.setDescription("Benchmark card");
+            cardId = userService.addCardToUser(userId, card).getCard().getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CardView getCardById() {
+        return cardService.getCardById(cardId);
+    }
+
+    @Benchmark
+    public Cards getCardByIdUncached() {
+        return cardRepository.findById(cardId).orElse(null);
+    }
+
+    @Benchmark
+    public List<CardView> findCardsByUserId() {
+        return userService.findCardsByUserId(userId);
+    }
+
+    @Benchmark
+    public Map<String, Object> getCardsPage() {
+        return userService.getCardsPage(userId, null, PAGE_SIZE, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> getCardIdsPage() {
+        return userService.getCardsPage(userId, null, PAGE_SIZE, Set.of("id"));
+    }
+
+    @Benchmark
+    public CollectionVersion getCardsVersion() {
+        return userService.getCardsVersion(userId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.app.prueba.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.prueba.services.CardSearchIndex;
+
+/**
+ * CardSearchIndex.search over synthetic cards: names of two common words and
+ * a number, descriptions of six words from a 5000 word vocabulary. Sampled
+ * times give the p99 of a broad two letter prefix, a two word query and a
+ * rare word. The first page of 20 is requested, as the endpoint does by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CardSearchBenchmark {
+
+    private static final String[] ADJECTIVES = { "red", "ancient", "silent", "frozen", "burning", "shadow",
+            "golden", "savage", "holy", "cursed", "iron", "storm", "wild", "hidden", "royal", "dark" };
+
+    private static final String[] NOUNS = { "dragon", "knight", "goblin", "wizard", "serpent", "golem", "phoenix",
+            "titan", "wolf", "spirit", "giant", "hydra", "rogue", "angel", "demon", "warden", "drake", "oracle" };
+
+    private static final int VOCABULARY = 5000;
+
+    @Param({ "100000", "1000000" })
+    private int cards;
+
+    private CardSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new CardSearchIndex();
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = word(random);
+        }
+
+        StringBuilder description = new StringBuilder();
+        for (int id = 1; id <= cards; id++) {
+            description.setLength(0);
+            for (int w = 0; w < 6; w++) {
+                description.append(vocabulary[random.nextInt(VOCABULARY)]).append(' ');
+            }
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                    + " " + id;
+            index.index(id, name, description.toString());
+        }
+    }
+
+    private static String word(Random random) {
+        String syllables = "ba be bi bo ka ke ki ko ma me mi mo ra re ri ro sa se si so ta te ti to";
+        String[] parts = syllables.split(" ");
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            word.append(parts[random.nextInt(parts.length)]);
+        }
+        return word.toString();
+    }
+
+    @Benchmark
+    public CardSearchIndex.Result broadPrefix() {
+        return index.search("dr", 20, 0);
+    }
+
+    @Benchmark
+    public CardSearchIndex.Result twoWords() {
+        return index.search("frozen drag", 20, 0);
+    }
+
+    @Benchmark
+    public CardSearchIndex.Result rareWord() {
+        return index.search("kobamira", 20, 0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.app.prueba.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.validations.EntityValidator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * What POST /api/cards/import spends per request before reaching the
+ * service: reading the uploaded card into a map and validating it. The
+ * perRequest benchmarks bootstrap a ValidatorFactory and build an ObjectMapper
+ * on every call, the shared ones reuse the application instances. Run with
+ * -prof gc for the bytes allocated per import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportValidationBenchmark {
+
+    private static final TypeReference<Map<String, Object>> CARD_MAP_TYPE = new TypeReference<>() {
+    };
+
+    private static final byte[] CARD_JSON = "{\"name\":\"Imported card\",\"description\":\"A card read from a file\"}"
+            .getBytes();
+
+    private ObjectMapper objectMapper;
+
+    private EntityValidator entityValidator;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        entityValidator = new EntityValidator(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private static Cards card(Map<String, Object> cardMap) {
+        Cards card = new Cards();
+        card.setName((String) cardMap.get("name"));
+        card.setDescription((String) cardMap.get("description"));
+        return card;
+    }
+
+    @Benchmark
+    public Map<String, String> perRequest() throws IOException {
+        Map<String, Object> cardMap = new ObjectMapper().readValue(CARD_JSON, CARD_MAP_TYPE);
+        Cards card = card(cardMap);
+        // A new factory per validation, as CardController.validateCard did
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Map<String, String> violations = new HashMap<>();
+            for (ConstraintViolation<Cards> violation : factory.getValidator().validate(card)) {
+                violations.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            return violations;
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> shared() throws IOException {
+        Map<String, Object> cardMap = objectMapper.readValue(CARD_JSON, CARD_MAP_TYPE);
+        return entityValidator.validate(card(cardMap));
+    }
+
+    @Benchmark
+    public Map<String, Object> perRequestObjectMapper() throws IOException {
+        return new ObjectMapper().readValue(CARD_JSON, CARD_MAP_TYPE);
+    }
+
+    @Benchmark
+    public Map<String, Object> sharedObjectMapper() throws IOException {
+        return objectMapper.readValue(CARD_JSON, CARD_MAP_TYPE);
+    }
+}
@@ -0,0 +1,94 @@
+package com.app.prueba.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson serialization of the response entities with an ObjectMapper built
+ * the way Spring Boot builds the application one. Run with -prof gc for the
+ * bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private ObjectMapper objectMapper;
+
+    private Cards card;
+
+    private User user;
+
+    private List<Cards> cardsPage;
+
+    private byte[] cardJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        card = new Cards();
+        card.setId(1);
+        card.setName("Benchmark card");
+        card.setDescription("A card used to measure serialization");
+
+        user = BenchmarkApplication.user(1);
+        user.setId(1);
+        user.setCards(card);
+
+        cardsPage = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Cards pageCard = new Cards();
+            pageCard.setId(i + 1);
+            pageCard.setName("Card " + i);
+            pageCard.setDescription("A card used to measure serialization");
+            cardsPage.add(pageCard);
+        }
+
+        cardJson = objectMapper.writeValueAsBytes(card);
+    }
+
+    @Benchmark
+    public byte[] serializeCard() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(card);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeCardsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cardsPage);
+    }
+
+    @Benchmark
+    public Cards deserializeCard() throws IOException {
+        return objectMapper.readValue(cardJson, Cards.class);
+    }
+}
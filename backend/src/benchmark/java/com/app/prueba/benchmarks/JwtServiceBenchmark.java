@@ -0,0 +1,97 @@
+package com.app.prueba.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.prueba.services.JwtService;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Login storm: every thread issues tokens as fast as it can. The legacy methods
+ * reproduce the previous AuthService code, which rebuilt the key per call and
+ * re-parsed every token it had just signed. Run with -prof gc to compare
+ * gc.alloc.rate.norm (bytes/op) between both paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "your_256_bit_secret_key_your_256_bit_secret_key";
+
+    private JwtService jwtService;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 86400000L, "");
+        token = jwtService.generateToken("benchmark");
+    }
+
+    @Benchmark
+    public boolean loginLegacy() {
+        return legacyValidate(legacyIssue());
+    }
+
+    @Benchmark
+    public String login() {
+        return jwtService.generateToken("benchmark");
+    }
+
+    @Benchmark
+    public String issueLegacy() {
+        return legacyIssue();
+    }
+
+    @Benchmark
+    public boolean verifyLegacy() {
+        return legacyValidate(token);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return jwtService.validateToken(token);
+    }
+
+    private static String legacyIssue() {
+        return Jwts.builder().subject("benchmark")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
+                .signWith(legacyKey()).compact();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.app.prueba.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.prueba.security.PasswordHasher;
+
+/**
+ * Sizes security.password.bcrypt-strength against the login p99 target. The
+ * sample-time mode reports p0.99 per cost; 'storm' runs more threads than
+ * hashing threads to show the queueing the bounded executor adds under load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    @Param({ "10", "11", "12" })
+    private int strength;
+
+    private PasswordHasher passwordHasher;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordHasher = new PasswordHasher(strength, 0, 1024, 60000L);
+        hash = passwordHasher.hash("benchmark-password");
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean login() {
+        return passwordHasher.matches("benchmark-password", hash);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean storm() {
+        return passwordHasher.matches("benchmark-password", hash);
+    }
+}
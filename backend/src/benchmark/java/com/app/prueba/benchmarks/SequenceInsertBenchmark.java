@@ -0,0 +1,95 @@
+package com.app.prueba.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.UserCards;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.services.CardImportService;
+import com.app.prueba.services.UserService;
+
+/**
+ * Insert throughput of UserService.addCardToUser and the bulk card import per
+ * sequence allocation size, on the embedded H2 database of the test profile.
+ * An allocation size of 1 reproduces the old one sequence call per insert;
+ * compare it with the configured sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SequenceInsertBenchmark {
+
+    private static final int IMPORT_SIZE = 500;
+
+    @Param({ "1", "50", "100" })
+    private int allocationSize;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private CardImportService cardImportService;
+
+    private int userId;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("sequence" + allocationSize,
+                "spring.jpa.properties.prueba.sequence.default-allocation-size=" + allocationSize,
+                "spring.jpa.properties.prueba.sequence.cards_seq.allocation-size=" + allocationSize,
+                "spring.jpa.properties.prueba.sequence.user_cards_seq.allocation-size=" + allocationSize);
+        userService = context.getBean(UserService.class);
+        cardImportService = context.getBean(CardImportService.class);
+        userId = context.getBean(UserRepository.class).save(BenchmarkApplication.user(0)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserCards addCardToUser() {
+        Cards card = new Cards();
+        card.setName("Card " + counter.incrementAndGet());
+        card.setDescription("Benchmark card");
+        return userService.addCardToUser(userId, card);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORT_SIZE)
+    public Map<String, Object> importCards() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < IMPORT_SIZE; i++) {
+            ndjson.append("{\"name\":\"Imported ").append(counter.incrementAndGet())
+                    .append("\",\"description\":\"Benchmark card\"}\n");
+        }
+        return cardImportService.importCards(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), userId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.app.prueba.config;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for background work with at most {@code concurrency} tasks
+ * running and {@code queueCapacity} waiting. Anything beyond that is rejected
+ * with {@link RejectedExecutionException}, which controllers turn into a 503.
+ *
+ * With spring.threads.virtual.enabled every task gets its own virtual thread
+ * and the limits are enforced with semaphores instead of a pool, since virtual
+ * threads are cheap to create and should not be pooled.
+ */
+public final class BoundedExecutors {
+
+    private BoundedExecutors() {
+    }
+
+    public static ExecutorService create(String name, int concurrency, int queueCapacity, boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadExecutor(name, concurrency, queueCapacity);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static final class VirtualThreadExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        // Running plus waiting tasks, taken without blocking the caller
+        private final Semaphore admitted;
+
+        // Running tasks; waiting for it parks a virtual thread, not a carrier
+        private final Semaphore running;
+
+        VirtualThreadExecutor(String name, int concurrency, int queueCapacity) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+            this.admitted = new Semaphore(concurrency + queueCapacity);
+            this.running = new Semaphore(concurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!admitted.tryAcquire()) {
+                throw new RejectedExecutionException("Executor is at capacity");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        running.acquire();
+                        try {
+                            command.run();
+                        } finally {
+                            running.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.app.prueba.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * userCardVersions is only evicted on the instance that changed the cards,
+     * so other instances serve its totals and ETags for at most ttl-ms. It has
+     * its own size and expiry, the entity caches share
+     * spring.cache.caffeine.spec.
+     */
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> userCardVersionsCache(
+            @Value("${cache.user-card-versions.ttl-ms:5000}") long ttlMs,
+            @Value("${cache.user-card-versions.max-size:10000}") long maxSize) {
+        return cacheManager -> cacheManager.registerCustomCache("userCardVersions", Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build());
+    }
+}
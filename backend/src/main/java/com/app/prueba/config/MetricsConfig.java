@@ -0,0 +1,66 @@
+package com.app.prueba.config;
+
+import java.lang.reflect.Method;
+
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.java21.instrument.binder.jdk.VirtualThreadMetrics;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Adds a query tag to spring.data.repository.invocations telling native SQL,
+     * JPQL, modifying and derived queries apart from the CRUD methods Spring Data
+     * provides and the methods of custom fragments, so the p99 of native queries
+     * such as findCardsByUserId can be followed on its own.
+     */
+    @Bean
+    RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaultTags = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaultTags.repositoryTags(invocation)).and(queryTag(invocation));
+    }
+
+    /**
+     * jvm.threads.virtual.pinned (from the jdk.VirtualThreadPinned JFR event) and
+     * the virtual thread submit failures, only when requests run on virtual
+     * threads.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    VirtualThreadMetrics virtualThreadMetrics() {
+        return new VirtualThreadMetrics();
+    }
+
+    private static Tag queryTag(RepositoryMethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        Query query = method.getAnnotation(Query.class);
+        if (query != null) {
+            if (method.isAnnotationPresent(Modifying.class)) {
+                return Tag.of("query", "modifying");
+            }
+            return Tag.of("query", query.nativeQuery() ? "native" : "jpql");
+        }
+        // findById, save and the like come from CrudRepository and JpaRepository, fragments
+        // such as UserCardsRepositoryCustom are not repositories themselves
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (declaringClass.getPackageName().startsWith(Repository.class.getPackageName())) {
+            return Tag.of("query", "crud");
+        }
+        if (!Repository.class.isAssignableFrom(declaringClass)) {
+            return Tag.of("query", "custom");
+        }
+        return Tag.of("query", "derived");
+    }
+}
@@ -7,31 +7,53 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.app.prueba.security.JwtAuthenticationFilter;
+import com.app.prueba.security.VerifiedTokenCache;
+import com.app.prueba.services.JwtService;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig implements WebMvcConfigurer {
 
+    // Open to anyone and never acting as the caller, so an invalid token is ignored there
+    private static final RequestMatcher ANONYMOUS_PATHS = new OrRequestMatcher(
+            AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/auth/**"),
+            AntPathRequestMatcher.antMatcher("/v3/api-docs/**"),
+            AntPathRequestMatcher.antMatcher("/swagger-ui.html"),
+            AntPathRequestMatcher.antMatcher("/swagger-ui/**"));
+
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService,
+            VerifiedTokenCache verifiedTokenCache) throws Exception {
         http.csrf(csrf -> csrf.disable()).cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtService, verifiedTokenCache, ANONYMOUS_PATHS),
+                        UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests((requests) -> requests
-                        // Swagger
-                        .requestMatchers("/v3/api-docs/**").permitAll()
-                        .requestMatchers("/swagger-ui.html").permitAll()
-                        .requestMatchers("/swagger-ui/**").permitAll()
+                        // Login, register and Swagger
+                        .requestMatchers(ANONYMOUS_PATHS).permitAll()
+
+                        // Actuator (management port, bound to localhost)
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/metrics/**",
+                                "/actuator/prometheus")
+                        .permitAll()
 
                         // API
                         .requestMatchers(HttpMethod.GET, "/", "/api/users", "/api/users/**", "/api/cards/**")
                         .permitAll()
-                        .requestMatchers(HttpMethod.POST, "/", "/api/users", "/api/users/**", "/api/auth/**",
-                                "/api/cards/**")
+                        .requestMatchers(HttpMethod.POST, "/", "/api/users", "/api/users/**", "/api/cards/**")
                         .permitAll()
                         .requestMatchers(HttpMethod.PUT, "/", "/api/users", "/api/users/**", "/api/cards/**")
                         .permitAll()
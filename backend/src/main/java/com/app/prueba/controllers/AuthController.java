@@ -2,15 +2,18 @@ package com.app.prueba.controllers;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.app.prueba.models.User;
+import com.app.prueba.security.LoginRateLimiter;
 import com.app.prueba.services.AuthService;
 import com.app.prueba.validations.ValidateEntity;
 
@@ -20,6 +23,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.web.bind.annotation.PostMapping;
@@ -34,6 +38,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @Operation(summary = "Register a new user", description = "Register a new user in the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "User registered", content = {
@@ -55,6 +62,10 @@ public class AuthController {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMostSpecificCause().getMessage().split("Detail: ")[1]);
             return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Server busy, try again later");
+            return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
 
@@ -63,14 +74,41 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "User logged in", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "429", description = "Too many attempts from the client or failures for the account", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "503", description = "Password hashing saturated", content = {
                     @Content(mediaType = "application/json") })
     })
     @PostMapping("login")
-    public ResponseEntity<?> login(@RequestBody User user) {
-        Map<String, Object> response = authService.login(user);
+    public ResponseEntity<?> login(@RequestBody User user, HttpServletRequest request) {
+        // The client address, taken from X-Forwarded-For behind a trusted proxy (server.forward-headers-strategy)
+        if (!loginRateLimiter.tryAcquire(request.getRemoteAddr())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", AuthService.TOO_MANY_ATTEMPTS);
+            return tooManyAttempts(errorResponse);
+        }
+
+        Map<String, Object> response;
+        try {
+            response = authService.login(user);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Server busy, try again later");
+            return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (AuthService.TOO_MANY_ATTEMPTS.equals(response.get("message"))) {
+            return tooManyAttempts(response);
+        }
         if (response.containsKey("message")) {
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
         }
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
+
+    private ResponseEntity<?> tooManyAttempts(Map<String, Object> response) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginRateLimiter.retryAfterSeconds()))
+                .body(response);
+    }
 }
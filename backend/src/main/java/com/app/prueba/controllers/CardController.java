@@ -1,21 +1,36 @@
 package com.app.prueba.controllers;
 
-import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.app.prueba.dto.CardPayload;
+import com.app.prueba.dto.CardView;
 import com.app.prueba.models.Cards;
+import com.app.prueba.services.CardExportService;
+import com.app.prueba.services.CardImportService;
+import com.app.prueba.services.CardNameIndex;
 import com.app.prueba.services.CardService;
+import com.app.prueba.services.ExportJob;
+import com.app.prueba.validations.EntityValidator;
 import com.app.prueba.validations.ValidateEntity;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -28,16 +43,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -51,42 +63,129 @@ public class CardController {
     @Autowired
     private CardService cardService;
 
-    @Operation(summary = "Get all cards", description = "Get all cards from the database")
+    @Autowired
+    private CardImportService cardImportService;
+
+    @Autowired
+    private CardExportService cardExportService;
+
+    @Autowired
+    private EntityValidator entityValidator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    // Ranking keeps offset + limit hits in memory
+    private static final int MAX_SEARCH_OFFSET = 10000;
+
+    private static final TypeReference<Map<String, Object>> CARD_MAP_TYPE = new TypeReference<>() {
+    };
+
+    @Operation(summary = "Get all cards", description = "Get a page of cards ordered by id. Use the returned nextCursor as the after parameter to fetch the next page")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cards found", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = Cards.class, type = "array")) }),
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters", content = {
+                    @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "404", description = "No cards found", content = {
                     @Content(mediaType = "application/json") })
     })
     @GetMapping
-    public ResponseEntity<?> getCards() {
-        List<Cards> cards = cardService.getAllCards();
-        if (cards.isEmpty()) {
+    public ResponseEntity<?> getCards(@RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit) {
+        if (after != null && after < 0) {
+            return createErrorResponse("after must not be negative", HttpStatus.BAD_REQUEST);
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            return createErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+
+        Map<String, Object> page = cardService.getCardsPage(after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        if (((List<?>) page.get("cards")).isEmpty()) {
             return createErrorResponse("No cards found", HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(cards, HttpStatus.OK);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Search cards", description = "Cards whose name or description has a word starting with every word of q, best matches first. Page with limit and offset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results, possibly empty", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Invalid query or pagination parameters", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCards(@RequestParam String q, @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer offset) {
+        if (limit != null && (limit < 1 || limit > MAX_SEARCH_PAGE_SIZE)) {
+            return createErrorResponse("limit must be between 1 and " + MAX_SEARCH_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        if (offset != null && (offset < 0 || offset > MAX_SEARCH_OFFSET)) {
+            return createErrorResponse("offset must be between 0 and " + MAX_SEARCH_OFFSET, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(cardService.searchCards(q, limit == null ? DEFAULT_SEARCH_PAGE_SIZE : limit,
+                    offset == null ? 0 : offset), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @Operation(summary = "Get card by id", description = "Get card by id from the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card found", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = Cards.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CardView.class)) }),
+            @ApiResponse(responseCode = "304", description = "Card unchanged since the If-None-Match ETag"),
             @ApiResponse(responseCode = "404", description = "Card not found", content = {
                     @Content(mediaType = "application/json") })
     })
     @GetMapping("/{id}")
-    public ResponseEntity<?> getCardById(@PathVariable Integer id) {
-        Cards card = cardService.getCardById(id);
-        if (card == null) {
+    public ResponseEntity<?> getCardById(@PathVariable Integer id, WebRequest request) {
+        if (id == null || id <= 0) {
             return createErrorResponse("Card not found", HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(card, HttpStatus.OK);
+        boolean acceptsGzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Revalidation is answered from the version alone, without loading the card. A gzip
+        // ETag only matches while the client still takes gzip
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            Long version = cardService.getCardVersion(id);
+            if (version != null) {
+                String eTag = acceptsGzip && ifNoneMatch.contains(gzipETag(id, version))
+                        ? gzipETag(id, version)
+                        : cardETag(id, version);
+                if (request.checkNotModified(eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag)
+                            .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+                }
+            }
+        }
+
+        // Cached bytes are written as they are, gzip ones when the client takes them
+        CardPayload payload = cardService.getCardPayload(id);
+        if (payload == null) {
+            return createErrorResponse("Card not found", HttpStatus.NOT_FOUND);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (payload.gzip() != null && acceptsGzip) {
+            return response.eTag(gzipETag(payload.id(), payload.version()))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+        }
+        return response.eTag(cardETag(payload.id(), payload.version())).body(payload.json());
     }
 
     @Operation(summary = "Create card", description = "Create card in the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Card created", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = Cards.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CardView.class)) }),
             @ApiResponse(responseCode = "409", description = "Conflict", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "400", description = "Bad request", content = {
@@ -98,18 +197,23 @@ public class CardController {
         if (uniqueCard.getErrorResponse(bindingResult) != null) {
             return uniqueCard.getErrorResponse(bindingResult);
         }
-        return new ResponseEntity<>(cardService.createCard(card), HttpStatus.CREATED);
+        try {
+            return new ResponseEntity<>(cardService.createCard(card), HttpStatus.CREATED);
+        } catch (DataIntegrityViolationException e) {
+            return createErrorResponse(CardNameIndex.DUPLICATE_NAME, HttpStatus.CONFLICT);
+        }
     }
 
     @Operation(summary = "Update card", description = "Update card in the database")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Card updated", content = @Content(schema = @Schema(implementation = Cards.class))),
+            @ApiResponse(responseCode = "200", description = "Card updated", content = @Content(schema = @Schema(implementation = CardView.class))),
             @ApiResponse(responseCode = "400", description = "Invalid card", content = @Content(schema = @Schema(implementation = Cards.class))),
-            @ApiResponse(responseCode = "404", description = "Card not found", content = @Content(schema = @Schema(implementation = Cards.class))) })
+            @ApiResponse(responseCode = "404", description = "Card not found", content = @Content(schema = @Schema(implementation = Cards.class))),
+            @ApiResponse(responseCode = "409", description = "Card modified concurrently or name already exists", content = @Content(mediaType = "application/json")) })
     @PutMapping("/{id}")
     public ResponseEntity<?> updateCard(@PathVariable int id, @Valid @RequestBody Cards card,
             BindingResult bindingResult) {
-        Cards cardToUpdate = cardService.getCardById(id);
+        Cards cardToUpdate = cardService.findCardForUpdate(id);
         if (cardToUpdate == null) {
             return createErrorResponse("Card not found", HttpStatus.NOT_FOUND);
         }
@@ -120,7 +224,14 @@ public class CardController {
         }
         cardToUpdate.setName(card.getName());
         cardToUpdate.setDescription(card.getDescription());
-        return new ResponseEntity<>(cardService.updateCard(cardToUpdate), HttpStatus.OK);
+        try {
+            Cards updated = cardService.updateCard(cardToUpdate);
+            return ResponseEntity.ok().eTag(cardETag(updated.getId(), updated.getVersion())).body(CardView.from(updated));
+        } catch (OptimisticLockingFailureException e) {
+            return createErrorResponse("Card was modified by another request", HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            return createErrorResponse(CardNameIndex.DUPLICATE_NAME, HttpStatus.CONFLICT);
+        }
     }
 
     @Operation(summary = "Delete card", description = "Delete card from the database")
@@ -132,7 +243,7 @@ public class CardController {
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteCard(@PathVariable int id) {
-        Cards card = cardService.getCardById(id);
+        CardView card = cardService.getCardById(id);
         if (card == null) {
             return createErrorResponse("Card not found", HttpStatus.NOT_FOUND);
         }
@@ -140,80 +251,197 @@ public class CardController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    @Operation(summary = "Export card", description = "Export card to json")
+    @Operation(summary = "Export card", description = "Export card to json. The file is written in the background")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card exported", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "404", description = "Card not found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "503", description = "Too many exports in progress", content = {
                     @Content(mediaType = "application/json") })
     })
     @PostMapping("/export/{id}")
-    public ResponseEntity<?> exportCard(@PathVariable int id) throws IOException {
-        Cards card = cardService.getCardById(id);
+    public ResponseEntity<?> exportCard(@PathVariable int id) {
+        CardView card = cardService.getCardById(id);
         if (card == null) {
             return createErrorResponse("Card not found", HttpStatus.NOT_FOUND);
         }
-        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> data = cardService.exportCardToJSON(card);
         try {
-            File directory = new File("examples");
-            if (!directory.exists()) {
-                directory.mkdir();
-            }
-            objectMapper.writeValue(
-                    new File(directory.getAbsolutePath() + "/" + id + "-card-" + card.getName() + ".json"),
-                    cardService.exportCardToJSON(id));
-        } catch (IOException e) {
-            return createErrorResponse("Error creating file", HttpStatus.BAD_REQUEST);
+            cardExportService.exportCard(card, data);
+        } catch (RejectedExecutionException e) {
+            return createErrorResponse("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
         }
         Map<String, Object> response = new HashMap<>();
-        response.put("data", cardService.exportCardToJSON(id));
-        response.put("message", "Card exported to " + id + "-card-" + card.getName() + ".json");
+        response.put("data", data);
+        response.put("message", "Card exported to " + id + "-card-" + card.name() + ".json");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    @Operation(summary = "Import card", description = "Import card from JSON file")
+    @Operation(summary = "Create export job", description = "Export the cards in an id range, of a user, or both, to one gzip-compressed NDJSON or ZIP file in the background. Poll the returned job until it is COMPLETED, then download the file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job created", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Invalid export parameters", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "503", description = "Too many exports in progress", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @PostMapping("/export")
+    public ResponseEntity<?> createExportJob(@RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Integer fromId, @RequestParam(required = false) Integer toId,
+            @RequestParam(required = false) Integer userId) {
+        CardExportService.Format exportFormat = Arrays.stream(CardExportService.Format.values())
+                .filter(value -> value.name().equalsIgnoreCase(format)).findFirst().orElse(null);
+        if (exportFormat == null) {
+            return createErrorResponse("format must be ndjson or zip", HttpStatus.BAD_REQUEST);
+        }
+        if ((fromId != null && fromId < 1) || (toId != null && toId < 1)) {
+            return createErrorResponse("fromId and toId must be positive ids", HttpStatus.BAD_REQUEST);
+        }
+        if (fromId != null && toId != null && fromId > toId) {
+            return createErrorResponse("fromId must not be greater than toId", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            ExportJob job = cardExportService.createJob(exportFormat, fromId, toId, userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/cards/export/jobs/" + job.getId()))
+                    .body(job.toMap());
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse("Invalid userId", HttpStatus.BAD_REQUEST);
+        } catch (RejectedExecutionException e) {
+            return createErrorResponse("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @Operation(summary = "Get export job", description = "Get the status and progress of an export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export job found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @GetMapping("/export/jobs/{jobId}")
+    public ResponseEntity<?> getExportJob(@PathVariable String jobId) {
+        ExportJob job = cardExportService.getJob(jobId);
+        if (job == null) {
+            return createErrorResponse("Export job not found", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job.toMap(), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Download export", description = "Download the file of a completed export job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export file", content = {
+                    @Content(mediaType = "application/gzip"), @Content(mediaType = "application/zip") }),
+            @ApiResponse(responseCode = "404", description = "Export job not found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "409", description = "Export job not completed", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @GetMapping("/export/jobs/{jobId}/file")
+    public ResponseEntity<StreamingResponseBody> downloadExport(@PathVariable String jobId) {
+        ExportJob job = cardExportService.getJob(jobId);
+        if (job == null) {
+            return createStreamingErrorResponse("Export job not found", HttpStatus.NOT_FOUND);
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            return createStreamingErrorResponse("Export job is " + job.getStatus(), HttpStatus.CONFLICT);
+        }
+
+        // Copied on the async request executor, not on the request thread
+        StreamingResponseBody body = outputStream -> cardExportService.writeFile(job, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.getFileName()).build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "Import card", description = "Import card from JSON file. A card already stored with the same name and description is linked to the user instead, once. "
+            + "Retries sent with the same Idempotency-Key get the first response back")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card imported", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "400", description = "Bad request", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "409", description = "Card name already exists, or a request with the same Idempotency-Key is in progress", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used with a different card", content = {
                     @Content(mediaType = "application/json") })
     })
     @PostMapping("/import")
     public ResponseEntity<?> importCard(@RequestParam(required = false) MultipartFile file,
-            @RequestParam(required = false) Integer userId) {
+            @RequestParam(required = false) Integer userId,
+            @RequestHeader(name = IdempotencyKeys.HEADER, required = false) String idempotencyKey) {
         if (userId == null) {
             return createErrorResponse("userId is required", HttpStatus.BAD_REQUEST);
         }
-        if (validateFile(file) != null) {
-            return validateFile(file);
+        if (validateFile(file, ".json") != null) {
+            return validateFile(file, ".json");
         }
 
+        Map<String, Object> cardMap;
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            Map<String, Object> cardMap = objectMapper.readValue(file.getInputStream(), new TypeReference<>() {
-            });
-            Cards card = new Cards();
-            card.setName((String) cardMap.get("name"));
-            card.setDescription((String) cardMap.get("description"));
-
-            if (!validateCard(card).isEmpty()) {
-                return createValidationErrorResponse(validateCard(card));
-            }
-            return new ResponseEntity<>(cardService.importCardFromJSON(cardMap, userId), HttpStatus.OK);
+            cardMap = objectMapper.readValue(file.getInputStream(), CARD_MAP_TYPE);
         } catch (JsonParseException | JsonMappingException e) {
             return createErrorResponse("Invalid JSON format", HttpStatus.BAD_REQUEST);
         } catch (IOException e) {
             return createErrorResponse("Error reading file", HttpStatus.BAD_REQUEST);
+        }
+
+        Cards card = new Cards();
+        card.setName((String) cardMap.get("name"));
+        card.setDescription((String) cardMap.get("description"));
+
+        Map<String, String> violations = entityValidator.validate(card);
+        if (!violations.isEmpty()) {
+            return new ResponseEntity<>(violations, HttpStatus.BAD_REQUEST);
+        }
+        return idempotencyKeys.execute(idempotencyKey, "POST /api/cards/import?userId=" + userId, cardMap, () -> {
+            try {
+                return new ResponseEntity<>(cardService.importCardFromJSON(cardMap, userId), HttpStatus.OK);
+            } catch (DataIntegrityViolationException e) {
+                return createErrorResponse(CardNameIndex.DUPLICATE_NAME, HttpStatus.CONFLICT);
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse("Invalid userId", HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    @Operation(summary = "Import cards in bulk", description = "Import many cards from a JSON array (.json) or newline-delimited JSON (.ndjson) file. Invalid cards are reported by line and do not stop the import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import report with the imported and failed counts and the errors per line", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @PostMapping("/import/bulk")
+    public ResponseEntity<?> importCards(@RequestParam(required = false) MultipartFile file,
+            @RequestParam(required = false) Integer userId) {
+        if (userId == null) {
+            return createErrorResponse("userId is required", HttpStatus.BAD_REQUEST);
+        }
+        if (validateFile(file, ".json", ".ndjson") != null) {
+            return validateFile(file, ".json", ".ndjson");
+        }
+
+        try {
+            return new ResponseEntity<>(cardImportService.importCards(file.getInputStream(), userId), HttpStatus.OK);
+        } catch (IOException e) {
+            return createErrorResponse("Error reading file", HttpStatus.BAD_REQUEST);
         } catch (IllegalArgumentException e) {
             return createErrorResponse("Invalid userId", HttpStatus.BAD_REQUEST);
         }
     }
 
-    private ResponseEntity<?> validateFile(MultipartFile file) {
+    private ResponseEntity<?> validateFile(MultipartFile file, String... extensions) {
         if (file == null) {
             return createErrorResponse("No file uploaded", HttpStatus.BAD_REQUEST);
         }
-        if (!file.getOriginalFilename().endsWith(".json")) {
+        if (file.getOriginalFilename() == null
+                || Arrays.stream(extensions).noneMatch(file.getOriginalFilename()::endsWith)) {
             return createErrorResponse("Invalid file format", HttpStatus.BAD_REQUEST);
         }
         if (file.isEmpty()) {
@@ -222,24 +450,74 @@ public class CardController {
         return null;
     }
 
+    private static String cardETag(int id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // The gzip bytes are another representation, so they get their own strong ETag
+    private static String gzipETag(int id, long version) {
+        return "\"" + id + "-" + version + "-gz\"";
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip: gzip itself when listed,
+     * whatever its position, else the * wildcard. A coding with q=0 is refused,
+     * and one whose q cannot be parsed is ignored.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean isGzip = name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip");
+            if (!isGzip && !name.equals("*")) {
+                continue;
+            }
+            Double quality = quality(parts);
+            if (quality == null) {
+                continue;
+            }
+            if (isGzip) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else {
+                any = any == null ? quality : Math.max(any, quality);
+            }
+        }
+        Double accepted = gzip != null ? gzip : any;
+        return accepted != null && accepted > 0;
+    }
+
+    // The q parameter of a coding, 1 when absent and null when malformed
+    private static Double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    double quality = Double.parseDouble(parameter[1].trim());
+                    return quality >= 0 && quality <= 1 ? quality : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return 1.0;
+    }
+
     private ResponseEntity<?> createErrorResponse(String message, HttpStatus status) {
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("message", message);
         return new ResponseEntity<>(errorResponse, status);
     }
 
-    private Set<ConstraintViolation<Cards>> validateCard(Cards card) {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        Validator validator = factory.getValidator();
-        return validator.validate(card);
-    }
-
-    private ResponseEntity<?> createValidationErrorResponse(
-            Set<ConstraintViolation<Cards>> violations) {
+    // Streaming handlers must declare a StreamingResponseBody, so their errors are streamed too
+    private ResponseEntity<StreamingResponseBody> createStreamingErrorResponse(String message, HttpStatus status) {
         Map<String, String> errorResponse = new HashMap<>();
-        for (ConstraintViolation<Cards> violation : violations) {
-            errorResponse.put(violation.getPropertyPath().toString(), violation.getMessage());
-        }
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        errorResponse.put("message", message);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, errorResponse));
     }
 }
@@ -0,0 +1,121 @@
+package com.app.prueba.controllers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Responses of POST requests sent with an Idempotency-Key header, so a client
+ * retrying a request it got no answer for receives the first response again
+ * instead of repeating the write.
+ *
+ * A key is scoped to the endpoint and user it was sent for and kept for
+ * idempotency.key-ttl-ms. Reusing it with a different request answers 422, and
+ * 409 while the first request is still running. Server errors and exceptions
+ * are not kept, so the request can be retried with the same key.
+ *
+ * Keys live in the memory of each instance, so a retry that reaches another
+ * instance runs again. It never stores the card twice, but it only links the
+ * card the first request stored once that instance's card name index knows
+ * the name (it is loaded at startup); until then the unique name constraint
+ * rejects the insert and the retry gets 409.
+ */
+@Component
+public class IdempotencyKeys {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Entry(Object request, CompletableFuture<ResponseEntity<?>> response) {
+    }
+
+    private final ConcurrentMap<String, Entry> entries;
+
+    public IdempotencyKeys(@Value("${idempotency.key-ttl-ms:86400000}") long keyTtlMs,
+            @Value("${idempotency.max-keys:100000}") long maxKeys) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofMillis(keyTtlMs))
+                .<String, Entry>build()
+                .asMap();
+    }
+
+    /**
+     * Runs the action, or replays the response it gave for this key.
+     *
+     * @param key     the Idempotency-Key header, the action just runs when null
+     * @param scope   endpoint and user the key applies to
+     * @param request what identifies the request, compared with equals
+     */
+    public ResponseEntity<?> execute(String key, String scope, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return createErrorResponse(HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        String entryKey = scope + ' ' + key;
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry previous = entries.putIfAbsent(entryKey, entry);
+        if (previous != null) {
+            return replay(previous, request);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(entryKey, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.remove(entryKey, entry);
+        }
+        entry.response().complete(response);
+        return response;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static ResponseEntity<?> replay(Entry previous, Object request) {
+        if (!Objects.equals(previous.request(), request)) {
+            return createErrorResponse(HEADER + " was already used with a different request",
+                    HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        CompletableFuture<ResponseEntity<?>> future = previous.response();
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return createErrorResponse("A request with this " + HEADER + " is in progress", HttpStatus.CONFLICT);
+        }
+
+        ResponseEntity<?> response = future.join();
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private static ResponseEntity<?> createErrorResponse(String message, HttpStatus status) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", message);
+        return new ResponseEntity<>(errorResponse, status);
+    }
+}
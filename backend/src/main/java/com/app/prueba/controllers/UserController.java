@@ -1,19 +1,35 @@
 package com.app.prueba.controllers;
 
+import java.net.URI;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.app.prueba.dto.CardAssignmentRequest;
+import com.app.prueba.dto.CollectionVersion;
+import com.app.prueba.dto.UserCardView;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.Cards;
 import com.app.prueba.models.User;
 import com.app.prueba.models.UserCards;
+import com.app.prueba.services.AssignmentJob;
+import com.app.prueba.services.CardAssignmentService;
+import com.app.prueba.services.CardNameIndex;
 import com.app.prueba.services.UserService;
 import com.app.prueba.validations.ValidateEntity;
 
@@ -29,8 +45,10 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PutMapping;
 
 @RestController
@@ -41,34 +59,54 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CardAssignmentService cardAssignmentService;
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Operation(summary = "Get all users", description = "Get all users from the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users found", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = User.class, type = "array")) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class, type = "array")) }),
             @ApiResponse(responseCode = "404", description = "No users found", content = {
                     @Content(mediaType = "application/json") })
     })
     @GetMapping
     public ResponseEntity<?> getUsers() {
-        List<User> users = userService.getAllUsers();
+        List<UserView> users = userService.getAllUsers();
         if (users.isEmpty()) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "No users found");
             return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
+        return new ResponseEntity<>(users, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Export all users", description = "Stream every user as newline-delimited JSON (Accept: application/x-ndjson)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users streamed", content = {
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = UserView.class)) })
+    })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream -> userService.exportUsers(outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(summary = "Get user by id", description = "Get a user by its id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class)) }),
             @ApiResponse(responseCode = "404", description = "User not found", content = {
                     @Content(mediaType = "application/json") })
     })
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserById(@PathVariable int id) {
-        User user = userService.getUserById(id);
+        UserView user = userService.getUserById(id);
         if (user == null) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "User not found");
@@ -80,7 +118,7 @@ public class UserController {
     @Operation(summary = "Create a new user", description = "Create a new user in the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "User created", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class)) }),
             @ApiResponse(responseCode = "409", description = "Conflict", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "400", description = "Bad request", content = {
@@ -98,13 +136,17 @@ public class UserController {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMostSpecificCause().getMessage().split("Detail: ")[1]);
             return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Server busy, try again later");
+            return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
 
     @Operation(summary = "Update a user", description = "Update a user in the database")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User updated", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserView.class)) }),
             @ApiResponse(responseCode = "404", description = "User not found", content = {
                     @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "409", description = "Conflict", content = {
@@ -115,7 +157,7 @@ public class UserController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateUser(@PathVariable int id, @Valid @RequestBody User user,
             BindingResult bindingResult) {
-        User userToUpdate = userService.getUserById(id);
+        User userToUpdate = userService.findUserForUpdate(id);
         if (userToUpdate == null) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "User not found");
@@ -133,11 +175,19 @@ public class UserController {
             userToUpdate.setPassword(user.getPassword());
             userToUpdate.setPhone(user.getPhone());
             userToUpdate.setUsername(user.getUsername());
-            return new ResponseEntity<>(userService.updateUser(userToUpdate), HttpStatus.OK);
+            return new ResponseEntity<>(UserView.from(userService.updateUser(userToUpdate)), HttpStatus.OK);
         } catch (DataIntegrityViolationException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMostSpecificCause().getMessage().split("Detail: ")[1]);
             return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "User was modified by another request");
+            return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Server busy, try again later");
+            return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
         }
 
     }
@@ -151,7 +201,7 @@ public class UserController {
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable int id) {
-        User user = userService.getUserById(id);
+        UserView user = userService.getUserById(id);
         if (user == null) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "User not found");
@@ -161,45 +211,129 @@ public class UserController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    @Operation(summary = "Get cards by user id", description = "Get all cards from a user by its id")
+    @Operation(summary = "Get cards by user id", description = "Get a page of the cards of a user ordered by id, with the total. Use the returned nextCursor as the after parameter to fetch the next page, and fields (a comma-separated subset of id, name and description) to get only those")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cards found", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = Cards.class, type = "array")) }),
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "304", description = "Cards unchanged since the If-None-Match ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters or fields", content = {
+                    @Content(mediaType = "application/json") }),
             @ApiResponse(responseCode = "404", description = "No cards found", content = {
                     @Content(mediaType = "application/json") })
     })
     @GetMapping("/{id}/cards")
-    public ResponseEntity<?> getCardsByUserId(@PathVariable int id) {
-        List<Cards> cards = userService.findCardsByUserId(id);
-        if (cards.isEmpty()) {
-            Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("message", "No cards found");
-            return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    public ResponseEntity<?> getCardsByUserId(@PathVariable int id, @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String fields,
+            WebRequest request) {
+        if (after != null && after < 0) {
+            return createErrorResponse("after must not be negative", HttpStatus.BAD_REQUEST);
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            return createErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        Set<String> cardFields = null;
+        if (fields != null && !fields.isBlank()) {
+            cardFields = Arrays.stream(fields.split(",")).map(String::trim).collect(Collectors.toSet());
+            if (!UserService.CARD_FIELDS.containsAll(cardFields)) {
+                return createErrorResponse("fields must be a subset of id, name and description",
+                        HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        // The cached aggregate gives the total and the ETag; the cards are only read when it changed
+        CollectionVersion version = userService.getCardsVersion(id);
+        if (version.count() == 0) {
+            return createErrorResponse("No cards found", HttpStatus.NOT_FOUND);
+        }
+        if (request.checkNotModified(version.eTag(id))) {
+            return null;
         }
-        return new ResponseEntity<>(cards, HttpStatus.OK);
+
+        Map<String, Object> page = userService.getCardsPage(id, after, limit == null ? DEFAULT_PAGE_SIZE : limit,
+                cardFields);
+        page.put("total", version.count());
+        return ResponseEntity.ok().eTag(version.eTag(id)).body(page);
     }
 
-    @Operation(summary = "Add card to user", description = "Add a card to a user by their IDs")
+    @Operation(summary = "Add card to user", description = "Add a card to a user by their IDs. A card already stored with the same name and description is linked instead, once. "
+            + "Retries sent with the same Idempotency-Key get the first response back")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card added to user", content = {
-                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserCards.class)) }),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserCardView.class)) }),
             @ApiResponse(responseCode = "404", description = "User or card not found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "409", description = "Card name already exists, or a request with the same Idempotency-Key is in progress", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used with a different card", content = {
                     @Content(mediaType = "application/json") })
     })
     @PostMapping("/{userId}/cards")
     public ResponseEntity<?> addCardToUser(@PathVariable int userId, @Valid @RequestBody Cards card,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            @RequestHeader(name = IdempotencyKeys.HEADER, required = false) String idempotencyKey) {
         ValidateEntity uniqueCard = new ValidateEntity();
         if (uniqueCard.getErrorResponse(bindingResult) != null) {
             return uniqueCard.getErrorResponse(bindingResult);
         }
-        try {
-            UserCards userCards = userService.addCardToUser(userId, card);
-            return new ResponseEntity<>(userCards, HttpStatus.OK);
-        } catch (IllegalArgumentException e) {
-            Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("message", e.getMessage());
-            return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        return idempotencyKeys.execute(idempotencyKey, "POST /api/users/" + userId + "/cards",
+                Arrays.asList(card.getName(), card.getDescription()), () -> {
+                    try {
+                        UserCards userCards = userService.addCardToUser(userId, card);
+                        return new ResponseEntity<>(UserCardView.from(userCards), HttpStatus.OK);
+                    } catch (DataIntegrityViolationException e) {
+                        return createErrorResponse(CardNameIndex.DUPLICATE_NAME, HttpStatus.CONFLICT);
+                    } catch (IllegalArgumentException e) {
+                        return createErrorResponse(e.getMessage(), HttpStatus.NOT_FOUND);
+                    }
+                });
+    }
+
+    @Operation(summary = "Assign cards to users", description = "Link every card to every user in the background, in batches of set-based inserts. Links that already exist and user ids that do not are skipped. "
+            + "Poll the returned job for progress. Retries sent with the same Idempotency-Key get the first job back")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Assignment job created", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Empty or too long id lists, or cards not found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "503", description = "Too many assignments in progress", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @PostMapping("/cards/assignments")
+    public ResponseEntity<?> createAssignmentJob(@RequestBody CardAssignmentRequest request,
+            @RequestHeader(name = IdempotencyKeys.HEADER, required = false) String idempotencyKey) {
+        return idempotencyKeys.execute(idempotencyKey, "POST /api/users/cards/assignments", request, () -> {
+            try {
+                AssignmentJob job = cardAssignmentService.createJob(request.userIds(), request.cardIds());
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .location(URI.create("/api/users/cards/assignments/" + job.getId()))
+                        .body(job.toMap());
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (RejectedExecutionException e) {
+                return createErrorResponse("Server busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        });
+    }
+
+    @Operation(summary = "Get assignment job", description = "Get the status and progress of a card assignment job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Assignment job found", content = {
+                    @Content(mediaType = "application/json") }),
+            @ApiResponse(responseCode = "404", description = "Assignment job not found", content = {
+                    @Content(mediaType = "application/json") })
+    })
+    @GetMapping("/cards/assignments/{jobId}")
+    public ResponseEntity<?> getAssignmentJob(@PathVariable String jobId) {
+        AssignmentJob job = cardAssignmentService.getJob(jobId);
+        if (job == null) {
+            return createErrorResponse("Assignment job not found", HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(job.toMap(), HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> createErrorResponse(String message, HttpStatus status) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", message);
+        return new ResponseEntity<>(errorResponse, status);
     }
-}
\ No newline at end of file
+}
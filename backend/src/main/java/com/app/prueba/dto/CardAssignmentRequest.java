@@ -0,0 +1,9 @@
+package com.app.prueba.dto;
+
+import java.util.List;
+
+/**
+ * Body of a bulk card assignment: every card is linked to every user.
+ */
+public record CardAssignmentRequest(List<Integer> userIds, List<Integer> cardIds) {
+}
@@ -0,0 +1,8 @@
+package com.app.prueba.dto;
+
+/**
+ * A card response serialized ahead of time: the JSON bytes and, when it came
+ * out smaller, the same bytes gzip-compressed (null otherwise).
+ */
+public record CardPayload(int id, long version, byte[] json, byte[] gzip) {
+}
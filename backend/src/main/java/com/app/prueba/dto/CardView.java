@@ -0,0 +1,13 @@
+package com.app.prueba.dto;
+
+import com.app.prueba.models.Cards;
+
+/**
+ * Read model for a card, filled straight from a constructor expression.
+ */
+public record CardView(int id, String name, String description) {
+
+    public static CardView from(Cards card) {
+        return card == null ? null : new CardView(card.getId(), card.getName(), card.getDescription());
+    }
+}
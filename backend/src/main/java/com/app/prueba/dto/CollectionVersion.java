@@ -0,0 +1,45 @@
+package com.app.prueba.dto;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Fingerprint of a set of versioned rows: the count and a digest of the (id,
+ * version) pairs in id order. Adding, removing or updating a row changes the
+ * digest, and so does replacing rows by others, which sums of ids and
+ * versions could not tell apart.
+ */
+public record CollectionVersion(long count, String digest) {
+
+    // 128 bits of SHA-256, enough to rule out accidental collisions
+    private static final int DIGEST_BYTES = 16;
+
+    /**
+     * @param rows the rows ordered by id
+     */
+    public static CollectionVersion of(List<RowVersion> rows) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer pair = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+        for (RowVersion row : rows) {
+            pair.clear();
+            pair.putInt(row.id()).putLong(row.version());
+            sha256.update(pair.array());
+        }
+        byte[] digest = sha256.digest();
+        return new CollectionVersion(rows.size(),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, DIGEST_BYTES)));
+    }
+
+    public String eTag(int ownerId) {
+        return "\"" + ownerId + "-" + count + "-" + digest + "\"";
+    }
+}
@@ -0,0 +1,4 @@
+package com.app.prueba.dto;
+
+public record RoleView(int id, String name) {
+}
@@ -0,0 +1,4 @@
+package com.app.prueba.dto;
+
+public record UserCardLink(int userId, int cardId) {
+}
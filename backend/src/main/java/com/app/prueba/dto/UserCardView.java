@@ -0,0 +1,10 @@
+package com.app.prueba.dto;
+
+import com.app.prueba.models.UserCards;
+
+public record UserCardView(int id, int userId, CardView card) {
+
+    public static UserCardView from(UserCards userCards) {
+        return new UserCardView(userCards.getId(), userCards.getUser().getId(), CardView.from(userCards.getCard()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.app.prueba.dto;
+
+/**
+ * Login projection: only the columns needed to check a password and issue a
+ * token, read from the one row the unique username or email index finds.
+ */
+public interface UserCredentials {
+
+    int getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    String getRole();
+}
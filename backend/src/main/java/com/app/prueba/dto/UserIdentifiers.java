@@ -0,0 +1,7 @@
+package com.app.prueba.dto;
+
+/**
+ * What a user logs in with, read to load the login identifier filter.
+ */
+public record UserIdentifiers(int id, String username, String email) {
+}
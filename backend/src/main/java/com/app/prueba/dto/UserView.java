@@ -0,0 +1,31 @@
+package com.app.prueba.dto;
+
+import com.app.prueba.models.User;
+
+/**
+ * Read model for a user. It has no password, and role and card are plain
+ * values, so serializing it never touches the persistence context.
+ */
+public record UserView(int id, String name, String lastName, String email, String username, String phone,
+        RoleView role, CardView cards) {
+
+    /**
+     * Flat form used by the JPQL constructor expressions. Role and card come from
+     * left joins, so their ids are null when the user has none.
+     */
+    public UserView(int id, String name, String lastName, String email, String username, String phone,
+            Integer roleId, String roleName, Integer cardId, String cardName, String cardDescription) {
+        this(id, name, lastName, email, username, phone,
+                roleId == null ? null : new RoleView(roleId, roleName),
+                cardId == null ? null : new CardView(cardId, cardName, cardDescription));
+    }
+
+    public static UserView from(User user) {
+        if (user == null) {
+            return null;
+        }
+        RoleView role = user.getRole() == null ? null : new RoleView(user.getRole().getId(), user.getRole().getName());
+        return new UserView(user.getId(), user.getName(), user.getLastName(), user.getEmail(), user.getUsername(),
+                user.getPhone(), role, CardView.from(user.getCards()));
+    }
+}
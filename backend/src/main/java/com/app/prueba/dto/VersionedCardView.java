@@ -0,0 +1,13 @@
+package com.app.prueba.dto;
+
+/**
+ * A card read model with the version it was read at, for the responses that
+ * carry an ETag.
+ */
+public record VersionedCardView(CardView card, long version) {
+
+    // Flat form used by the JPQL constructor expression
+    public VersionedCardView(int id, String name, String description, long version) {
+        this(new CardView(id, name, description), version);
+    }
+}
@@ -1,26 +1,32 @@
 package com.app.prueba.models;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.validator.constraints.Length;
 
+import com.app.prueba.persistence.PooledSequence;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+// Lazy references from User are proxies until loaded
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Table(name = "cards")
 @Getter
 @Setter
 public class Cards {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence
     private int id;
 
     @Column(name = "name", unique = true)
@@ -32,4 +38,11 @@ public class Cards {
     @Column(name = "description")
     private String description;
 
+    // Optimistic locking and ETags. Existing rows start at 0 when the column is added
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
 }
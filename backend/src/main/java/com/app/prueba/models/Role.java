@@ -1,20 +1,23 @@
 package com.app.prueba.models;
 
+import com.app.prueba.persistence.PooledSequence;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Getter;
 
 @Entity
+// Lazy references from User are proxies until loaded
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Table(name = "roles")
 @Getter
 public class Role {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence
     private int id;
 
     @Column(name = "name")
@@ -1,30 +1,55 @@
 package com.app.prueba.models;
 
+import java.time.Instant;
+
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.validator.constraints.Length;
 
+import com.app.prueba.persistence.PooledSequence;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "users")
+// updated_at serves the refresh of the login identifier filter
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_updated_at", columnList = "updated_at")
+})
+// Associations are lazy; queries that return users to clients fetch both with
+// this graph in the same select
+@NamedEntityGraph(name = User.WITH_ROLE_AND_CARDS, attributeNodes = {
+        @NamedAttributeNode("role"),
+        @NamedAttributeNode("cards")
+})
 @Getter
 @Setter
 public class User {
+
+    public static final String WITH_ROLE_AND_CARDS = "User.withRoleAndCards";
+
     // Attributes id, name, lastName, email, password, phone
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence
     private int id;
 
     @Column(name = "name")
@@ -61,12 +86,46 @@ public class User {
     private String phone;
 
     // 1 user 1 role
-    @OneToOne // 1 user 1 role
+    @OneToOne(fetch = FetchType.LAZY) // 1 user 1 role
     private Role role;
 
-    @ManyToOne // 1 user many cards
+    @ManyToOne(fetch = FetchType.LAZY) // 1 user many cards
     // optinal true 0..* (default)
     // optinal false 1..*
     private Cards cards;
 
+    // Optimistic locking and ETags. Existing rows start at 0 when the column is added
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    // Set on every insert and update, so other instances can pick up new and
+    // renamed users for their login identifier filter. Null on rows that
+    // predate the column, which only the full rebuild reads
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
+
+    // Set when a password is assigned after the user was loaded, so the service
+    // hashes what the client sent and leaves a stored hash as it is
+    @Transient
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private boolean passwordChanged;
+
+    public void setPassword(String password) {
+        this.password = password;
+        this.passwordChanged = true;
+    }
+
+    // The hash of the password just set, which is not a new password to hash again
+    @JsonIgnore
+    public void setPasswordHash(String passwordHash) {
+        this.password = passwordHash;
+        this.passwordChanged = false;
+    }
+
 }
\ No newline at end of file
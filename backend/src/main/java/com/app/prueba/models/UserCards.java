@@ -1,17 +1,28 @@
 package com.app.prueba.models;
 
+import com.app.prueba.persistence.PooledSequence;
+
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "user_cards")
+// A card is linked to a user once. The index of the constraint also serves the pages of a
+// user's cards in card order, and their ids without touching cards
+@Table(name = "user_cards", uniqueConstraints = {
+        @UniqueConstraint(name = UserCards.USER_CARD_CONSTRAINT, columnNames = { "user_id", "card_id" })
+})
 @Getter
 @Setter
 public class UserCards {
 
+    public static final String USER_CARD_CONSTRAINT = "uk_user_cards_user_card";
+
+    // Skips links that already exist, any other conflict still fails the insert
+    public static final String ON_LINK_CONFLICT = "ON CONFLICT ON CONSTRAINT " + USER_CARD_CONSTRAINT + " DO NOTHING";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence
     private int id;
 
     @ManyToOne
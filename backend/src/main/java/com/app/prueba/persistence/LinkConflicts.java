@@ -0,0 +1,32 @@
+package com.app.prueba.persistence;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import com.app.prueba.models.UserCards;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The ON CONFLICT clause of user_cards link inserts for the database in use.
+ * PostgreSQL gets the (user_id, card_id) constraint as conflict target, so a
+ * conflict on any other key, such as a duplicate id, still fails the insert.
+ * H2, which runs the tests and benchmarks, takes no conflict target.
+ */
+public final class LinkConflicts {
+
+    static final String ANY_CONFLICT = "ON CONFLICT DO NOTHING";
+
+    private LinkConflicts() {
+    }
+
+    public static String onLinkConflict(EntityManagerFactory entityManagerFactory) {
+        return onLinkConflict(
+                entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect());
+    }
+
+    static String onLinkConflict(Dialect dialect) {
+        return dialect instanceof H2Dialect ? ANY_CONFLICT : UserCards.ON_LINK_CONFLICT;
+    }
+}
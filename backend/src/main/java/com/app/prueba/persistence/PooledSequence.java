@@ -0,0 +1,24 @@
+package com.app.prueba.persistence;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Generates ids from the {@code <table>_seq} database sequence through a pooled
+ * optimizer, so one sequence call hands out a whole block of ids and inserts
+ * can be batched.
+ *
+ * The block size is read at startup from
+ * prueba.sequence.&lt;sequence&gt;.allocation-size (falling back to
+ * prueba.sequence.default-allocation-size) and the optimizer from
+ * prueba.sequence.optimizer, all set through spring.jpa.properties.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface PooledSequence {
+}
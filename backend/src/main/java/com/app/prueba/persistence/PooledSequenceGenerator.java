@@ -0,0 +1,60 @@
+package com.app.prueba.persistence;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * {@link SequenceStyleGenerator} whose allocation size and optimizer come from
+ * configuration instead of annotation constants. See {@link PooledSequence}.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String PROPERTY_PREFIX = "prueba.sequence.";
+
+    public static final String DEFAULT_ALLOCATION_SIZE_PROPERTY = PROPERTY_PREFIX + "default-allocation-size";
+
+    public static final String OPTIMIZER_PROPERTY = PROPERTY_PREFIX + "optimizer";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    // Matches the optimizer the previous AUTO mapping used, so sequences shared
+    // with running instances keep the same meaning
+    public static final String DEFAULT_OPTIMIZER = "pooled";
+
+    private Map<String, Object> settings;
+
+    // Lower-cased: the implicit name is "<table>_SEQ" but databases fold it
+    private String sequenceName;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        JdbcEnvironment jdbcEnvironment = serviceRegistry.requireService(JdbcEnvironment.class);
+        settings = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        sequenceName = determineSequenceName(parameters, jdbcEnvironment.getDialect(), jdbcEnvironment,
+                serviceRegistry).getObjectName().getText().toLowerCase(Locale.ROOT);
+        parameters.setProperty(OptimizableGenerator.OPT_PARAM,
+                ConfigurationHelper.getString(OPTIMIZER_PROPERTY, settings, DEFAULT_OPTIMIZER));
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    protected int determineIncrementSize(Properties parameters) {
+        int defaultSize = ConfigurationHelper.getInt(DEFAULT_ALLOCATION_SIZE_PROPERTY, settings,
+                DEFAULT_ALLOCATION_SIZE);
+        return ConfigurationHelper.getInt(PROPERTY_PREFIX + sequenceName + ".allocation-size", settings, defaultSize);
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.prueba.persistence;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Polls the replica lag (in milliseconds, from spring.datasource.replica.lag-query)
+ * and keeps the replica in rotation only while it is at most max-lag-ms behind
+ * the primary. A failing or timed out query takes it out of rotation too.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    private final JdbcTemplate replica;
+
+    private final String lagQuery;
+
+    private final long maxLagMs;
+
+    private volatile Long lastLagMs;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, DataSource replicaDataSource,
+            String lagQuery, long maxLagMs) {
+        this.routingDataSource = routingDataSource;
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(1);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        Long lagMs;
+        try {
+            lagMs = replica.queryForObject(lagQuery, Long.class);
+        } catch (DataAccessException e) {
+            logger.warn("Replica lag check failed: {}", e.getMessage());
+            lagMs = null;
+        }
+        lastLagMs = lagMs;
+        routingDataSource.setReplicaAvailable(lagMs != null && lagMs <= maxLagMs);
+    }
+
+    /**
+     * Lag seen by the last check, null when the replica could not be queried.
+     */
+    public Long getLastLagMs() {
+        return lastLagMs;
+    }
+}
@@ -0,0 +1,22 @@
+package com.app.prueba.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read that tolerates the replica lag (up to max-lag-ms), such as
+ * lists, search and exports. Such methods run on the read replica when it is
+ * configured and in rotation, as long as the transaction they run in is
+ * read-only. Every other read stays on the primary, so reads that fill a
+ * cache or come before a write always see the latest committed data.
+ *
+ * Works on service methods and on repository query methods.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
@@ -0,0 +1,26 @@
+package com.app.prueba.persistence;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Lets the connections fetched while a {@link ReplicaRead} method runs go to
+ * the replica. Nested calls keep the outer flag once they return.
+ */
+public class ReplicaReadInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Boolean previous = ReplicaRoutingDataSource.REPLICA_READ.get();
+        ReplicaRoutingDataSource.REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous == null) {
+                ReplicaRoutingDataSource.REPLICA_READ.remove();
+            } else {
+                ReplicaRoutingDataSource.REPLICA_READ.set(previous);
+            }
+        }
+    }
+}
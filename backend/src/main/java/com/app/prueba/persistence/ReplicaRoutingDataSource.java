@@ -0,0 +1,85 @@
+package com.app.prueba.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions of {@link ReplicaRead} methods to the replica
+ * and everything else to the primary. Reads that are not marked, like those
+ * behind the entity caches or before a write, must see the writes that
+ * preceded them, which a lagging replica does not guarantee. The replica is only used while {@link ReplicaLagMonitor} reports it
+ * available, and a replica that cannot hand out a connection is marked
+ * unavailable and the primary is used instead.
+ *
+ * The route is decided when the connection is fetched, so this must sit behind
+ * a LazyConnectionDataSourceProxy: the transaction manager asks for a
+ * connection before the read-only flag of the transaction is published.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    // Set by ReplicaReadInterceptor while a ReplicaRead method runs
+    static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private volatile boolean replicaAvailable;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaAvailable && REPLICA_READ.get() != null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            logger.warn("Replica connection failed, reading from the primary: {}", e.getMessage());
+            setReplicaAvailable(false);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Credentials belong to the pools, route as for getConnection()
+        return getConnection();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public void setReplicaAvailable(boolean replicaAvailable) {
+        if (this.replicaAvailable != replicaAvailable) {
+            logger.info("Read replica {}", replicaAvailable ? "in use" : "out of rotation, reads go to the primary");
+        }
+        this.replicaAvailable = replicaAvailable;
+    }
+}
@@ -0,0 +1,61 @@
+package com.app.prueba.persistence;
+
+import java.util.List;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Aligns the increment of existing sequences with the configured allocation
+ * sizes. The pooled optimizers require both to match, and schema update only
+ * creates missing sequences, it never alters existing ones.
+ *
+ * Hibernate is set to only log the mismatch it finds at startup
+ * (hibernate.id.sequence.increment_size_mismatch_strategy) so this can fix it.
+ *
+ * Raising an increment is safe while other instances run. Lowering it is only
+ * safe with every instance stopped, since running instances would keep
+ * reserving blocks of the old size.
+ */
+@Component
+public class SequenceAllocationMigrator implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAllocationMigrator.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Runs before the web server starts, so no insert can use a stale increment
+    @Override
+    public void afterSingletonsInstantiated() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .forEachEntityDescriptor(descriptor -> {
+                    if (descriptor.getGenerator() instanceof PooledSequenceGenerator generator) {
+                        migrate(generator.getSequenceName(), generator.getDatabaseStructure().getIncrementSize());
+                    }
+                });
+    }
+
+    private void migrate(String sequenceName, int allocationSize) {
+        List<String> increments = jdbcTemplate.queryForList(
+                "SELECT increment FROM information_schema.sequences WHERE LOWER(sequence_name) = ?", String.class,
+                sequenceName.toLowerCase());
+        if (increments.isEmpty() || Long.parseLong(increments.get(0)) == allocationSize) {
+            return;
+        }
+
+        logger.info("Changing increment of sequence {} from {} to {}", sequenceName, increments.get(0),
+                allocationSize);
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " INCREMENT BY " + allocationSize);
+    }
+}
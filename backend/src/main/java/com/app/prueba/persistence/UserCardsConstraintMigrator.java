@@ -0,0 +1,51 @@
+package com.app.prueba.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.app.prueba.models.UserCards;
+
+/**
+ * Adds the unique (user_id, card_id) constraint to an existing user_cards
+ * table. Schema update tries to add it too, but fails while the table holds
+ * the same link twice, so duplicated links are deleted first, keeping the
+ * oldest row of each.
+ */
+@Component
+public class UserCardsConstraintMigrator implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCardsConstraintMigrator.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Runs before the web server starts, so no request links cards in between
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!constraintExists()) {
+            try {
+                int removed = jdbcTemplate.update("DELETE FROM user_cards WHERE id NOT IN "
+                        + "(SELECT MIN(id) FROM user_cards GROUP BY user_id, card_id)");
+                jdbcTemplate.execute("ALTER TABLE user_cards ADD CONSTRAINT " + UserCards.USER_CARD_CONSTRAINT
+                        + " UNIQUE (user_id, card_id)");
+                logger.info("Added constraint {} after deleting {} duplicated user cards",
+                        UserCards.USER_CARD_CONSTRAINT, removed);
+            } catch (DataAccessException e) {
+                // Another instance starting at the same time may have added it
+                logger.warn("Could not add constraint {}", UserCards.USER_CARD_CONSTRAINT, e);
+            }
+        }
+    }
+
+    boolean constraintExists() {
+        Integer constraints = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.table_constraints WHERE LOWER(constraint_name) = ?",
+                Integer.class, UserCards.USER_CARD_CONSTRAINT);
+        return constraints != null && constraints > 0;
+    }
+}
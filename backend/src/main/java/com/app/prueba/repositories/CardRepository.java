@@ -1,12 +1,20 @@
 package com.app.prueba.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.RowVersion;
+import com.app.prueba.dto.VersionedCardView;
 import com.app.prueba.models.Cards;
+import com.app.prueba.persistence.ReplicaRead;
 
 @Repository
 public interface CardRepository extends JpaRepository<Cards, Integer> {
@@ -14,4 +22,66 @@ public interface CardRepository extends JpaRepository<Cards, Integer> {
     @Query(value = "SELECT c.* FROM cards c JOIN user_cards uc ON c.id = uc.card_id WHERE uc.user_id = :userId", nativeQuery = true)
     public List<Cards> findCardsByUserId(int userId);
 
+    @Query("SELECT new com.app.prueba.dto.CardView(c.id, c.name, c.description) "
+            + "FROM UserCards uc JOIN uc.card c WHERE uc.user.id = :userId ORDER BY c.id")
+    public List<CardView> findCardViewsByUserId(int userId);
+
+    // Keyset pages of a user's cards along the (user_id, card_id) index of user_cards
+
+    @Query("SELECT new com.app.prueba.dto.CardView(c.id, c.name, c.description) "
+            + "FROM UserCards uc JOIN uc.card c WHERE uc.user.id = :userId AND uc.card.id > :after ORDER BY uc.card.id")
+    public List<CardView> findCardViewsByUserIdAfter(int userId, int after, Limit limit);
+
+    @Query("SELECT uc.card.id FROM UserCards uc WHERE uc.user.id = :userId AND uc.card.id > :after ORDER BY uc.card.id")
+    public List<Integer> findCardIdsByUserIdAfter(int userId, int after, Limit limit);
+
+    // Conditional GETs compare these against If-None-Match without loading the cards
+
+    @Query("SELECT c.version FROM Cards c WHERE c.id = :id")
+    public Optional<Long> findVersionById(int id);
+
+    @Query("SELECT new com.app.prueba.dto.RowVersion(c.id, c.version) "
+            + "FROM UserCards uc JOIN uc.card c WHERE uc.user.id = :userId ORDER BY c.id")
+    public List<RowVersion> findCardVersionsByUserId(int userId);
+
+    // Tells a failed insert that hit the unique name apart from other failures
+    public boolean existsByName(String name);
+
+    // Checks a name index entry that may be stale
+    @Query("SELECT c.id FROM Cards c WHERE c.name = :name")
+    public Optional<Integer> findIdByName(String name);
+
+    // Name before an update or delete, to keep the card name index in sync
+    @Query("SELECT c.name FROM Cards c WHERE c.id = :id")
+    public Optional<String> findNameById(int id);
+
+    // Keyset pagination over the primary key: seeks straight to the cursor through
+    // the PK index instead of scanning and discarding OFFSET rows
+    @Query("SELECT new com.app.prueba.dto.CardView(c.id, c.name, c.description) "
+            + "FROM Cards c WHERE c.id > :id ORDER BY c.id")
+    public List<CardView> findViewsAfter(int id, Limit limit);
+
+    // Card detail and its cached payload: the columns of the response and the version, no entity
+    @Query("SELECT new com.app.prueba.dto.VersionedCardView(c.id, c.name, c.description, c.version) "
+            + "FROM Cards c WHERE c.id = :id")
+    public Optional<VersionedCardView> findVersionedViewById(int id);
+
+    @Query("SELECT new com.app.prueba.dto.CardView(c.id, c.name, c.description) FROM Cards c WHERE c.id IN :ids")
+    public List<CardView> findViewsByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT c.id FROM Cards c WHERE c.id IN :ids")
+    public List<Integer> findIdsByIdIn(Collection<Integer> ids);
+
+    // Same keyset walk bounded by toId, for exports of an id range. Exports read
+    // from the replica when there is one
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<Cards> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(int after, int toId, Limit limit);
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    @Query("SELECT uc.card FROM UserCards uc WHERE uc.user.id = :userId AND uc.card.id > :after AND uc.card.id <= :toId ORDER BY uc.card.id")
+    public List<Cards> findCardsByUserIdAfter(int userId, int after, int toId, Limit limit);
+
 }
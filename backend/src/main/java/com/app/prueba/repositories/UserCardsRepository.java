@@ -1,11 +1,23 @@
 package com.app.prueba.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.app.prueba.dto.UserCardLink;
 import com.app.prueba.models.UserCards;
 
 @Repository
-public interface UserCardsRepository extends JpaRepository<UserCards, Integer> {
+public interface UserCardsRepository extends JpaRepository<UserCards, Integer>, UserCardsRepositoryCustom {
+
+    public Optional<UserCards> findByUserIdAndCardId(int userId, int cardId);
 
+    // Links among the given users and cards, read from the (user_id, card_id) index
+    @Query("SELECT new com.app.prueba.dto.UserCardLink(uc.user.id, uc.card.id) FROM UserCards uc "
+            + "WHERE uc.user.id IN :userIds AND uc.card.id IN :cardIds")
+    public List<UserCardLink> findLinks(Collection<Integer> userIds, Collection<Integer> cardIds);
 }
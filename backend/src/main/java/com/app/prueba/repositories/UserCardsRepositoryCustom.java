@@ -0,0 +1,14 @@
+package com.app.prueba.repositories;
+
+public interface UserCardsRepositoryCustom {
+
+    /**
+     * Links the card to the user unless they are already linked. One statement
+     * against the unique (user_id, card_id) constraint, so concurrent retries
+     * neither fail nor add a second row. Any other conflict, such as a
+     * duplicate id, still fails.
+     *
+     * @return 1 if the link was inserted, 0 if it already existed
+     */
+    public int insertIfAbsent(int userId, int cardId);
+}
@@ -0,0 +1,34 @@
+package com.app.prueba.repositories;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.app.prueba.persistence.LinkConflicts;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class UserCardsRepositoryImpl implements UserCardsRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String insertLink;
+
+    // A native query, so pending inserts of the card or user are flushed first
+    @Override
+    @Transactional
+    public int insertIfAbsent(int userId, int cardId) {
+        return entityManager.createNativeQuery(insertLink())
+                .setParameter(1, userId)
+                .setParameter(2, cardId)
+                .executeUpdate();
+    }
+
+    private String insertLink() {
+        if (insertLink == null) {
+            insertLink = "INSERT INTO user_cards (id, user_id, card_id) VALUES (nextval('user_cards_seq'), ?1, ?2) "
+                    + LinkConflicts.onLinkConflict(entityManager.getEntityManagerFactory());
+        }
+        return insertLink;
+    }
+}
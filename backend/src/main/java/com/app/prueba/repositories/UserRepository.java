@@ -1,23 +1,89 @@
 package com.app.prueba.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.UserCredentials;
+import com.app.prueba.dto.UserIdentifiers;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
 
-    @Query(value = "SELECT * FROM users WHERE email = :email", nativeQuery = true)
+    String USER_VIEW = "SELECT new com.app.prueba.dto.UserView(u.id, u.name, u.lastName, u.email, u.username, u.phone, "
+            + "r.id, r.name, c.id, c.name, c.description) FROM User u LEFT JOIN u.role r LEFT JOIN u.cards c";
+
+    // Entity reads: role and cards are fetched in the same select, so the
+    // number of statements does not grow with the number of users
+    @Override
+    @EntityGraph(User.WITH_ROLE_AND_CARDS)
+    public List<User> findAll();
+
+    @EntityGraph(User.WITH_ROLE_AND_CARDS)
     public User findUserByEmail(String email);
 
-    @Query(value = "SELECT * FROM users WHERE username = :username", nativeQuery = true)
+    @EntityGraph(User.WITH_ROLE_AND_CARDS)
     public User findUserByUsername(String username);
 
-    @Query(value = "SELECT * FROM users WHERE username = :username OR email = :email", nativeQuery = true)
-    public User findUserByUsernameOrEmail(String username, String email);
+    // Read models for the API: only the columns the responses carry, no password
+    // and no managed entities left in the persistence context
+
+    @Query(USER_VIEW + " ORDER BY u.id")
+    public List<UserView> findAllViews();
+
+    @Query(USER_VIEW + " WHERE u.id = :id")
+    public Optional<UserView> findViewById(int id);
+
+    // Must be consumed inside a transaction. The fetch size makes the driver use a
+    // server-side cursor instead of buffering the whole result set
+    @Query(USER_VIEW + " ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    public Stream<UserView> streamAllViews();
+
+    // Login reads the projections below and never loads the entity
+
+    @Query("SELECT u.id AS id, u.username AS username, u.password AS password, r.name AS role "
+            + "FROM User u LEFT JOIN u.role r WHERE u.username = :username")
+    public UserCredentials findCredentialsByUsername(String username);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.password AS password, r.name AS role "
+            + "FROM User u LEFT JOIN u.role r WHERE u.email = :email")
+    public UserCredentials findCredentialsByEmail(String email);
+
+    // Keyset pages of login identifiers, to load them without the other columns
+    @Query("SELECT new com.app.prueba.dto.UserIdentifiers(u.id, u.username, u.email) FROM User u "
+            + "WHERE u.id > :after ORDER BY u.id")
+    public List<UserIdentifiers> findIdentifiersAfter(int after, Limit limit);
+
+    // Same pages restricted to users inserted or updated since the given time
+    @Query("SELECT new com.app.prueba.dto.UserIdentifiers(u.id, u.username, u.email) FROM User u "
+            + "WHERE u.updatedAt >= :since AND u.id > :after ORDER BY u.id")
+    public List<UserIdentifiers> findIdentifiersChangedSince(Instant since, int after, Limit limit);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    public List<Integer> findIdsByIdIn(Collection<Integer> ids);
 
-    @Query(value = "SELECT * FROM users WHERE email = :email AND password = :password", nativeQuery = true)
-    public User findUserByEmailAndPassword(String email, String password);
+    // Bumps the version like an entity update would, so ETags and optimistic locks see the change
+    @Modifying
+    @Transactional
+    @CacheEvict(cacheNames = "users", key = "#id")
+    @Query("UPDATE User u SET u.password = :password, u.version = u.version + 1 WHERE u.id = :id")
+    public int updatePassword(int id, String password);
 }
@@ -0,0 +1,64 @@
+package com.app.prueba.security;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.prueba.dto.UserCredentials;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Login credentials (id, username, password hash and role) of users found by
+ * username or email, kept for credentials-cache.ttl-ms so repeated logins of
+ * the same account skip the query. The password is still checked against the
+ * hash on every login. Lookups that find no user are not cached, the
+ * {@link UserIdentifierFilter} answers those.
+ *
+ * Entries of a user are dropped when the user is updated or deleted through
+ * this instance. Changes made through other instances show up once the entry
+ * expires, which is why the TTL is short.
+ */
+@Component
+public class CredentialCache {
+
+    public enum Column {
+        USERNAME, EMAIL
+    }
+
+    private record Key(Column column, String value) {
+    }
+
+    private final Cache<Key, UserCredentials> credentials;
+
+    public CredentialCache(@Value("${security.login.credentials-cache.ttl-ms:30000}") long ttlMs,
+            @Value("${security.login.credentials-cache.max-size:10000}") long maxSize) {
+        this.credentials = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    /**
+     * The cached credentials for the value of the column, loaded when missing.
+     *
+     * @return null if the loader finds no user
+     */
+    public UserCredentials get(Column column, String value, Function<String, UserCredentials> loader) {
+        return credentials.get(new Key(column, value), key -> loader.apply(key.value()));
+    }
+
+    public void invalidateUser(int userId) {
+        credentials.asMap().values().removeIf(cached -> cached.getId() == userId);
+    }
+
+    public void invalidateAll() {
+        credentials.invalidateAll();
+    }
+
+    public long size() {
+        return credentials.estimatedSize();
+    }
+}
@@ -0,0 +1,83 @@
+package com.app.prueba.security;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.app.prueba.services.JwtService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authenticates requests carrying an "Authorization: Bearer" token. Requests
+ * without the header continue anonymously; requests with an invalid or expired
+ * token are rejected with 401, except on the anonymous paths (such as login
+ * and register), where the token is ignored.
+ *
+ * Not a bean on purpose: Spring Boot would also register it as a servlet
+ * filter, so it is only added to the security filter chain.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+
+    private final VerifiedTokenCache tokenCache;
+
+    private final RequestMatcher anonymousPaths;
+
+    public JwtAuthenticationFilter(JwtService jwtService, VerifiedTokenCache tokenCache,
+            RequestMatcher anonymousPaths) {
+        this.jwtService = jwtService;
+        this.tokenCache = tokenCache;
+        this.anonymousPaths = anonymousPaths;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        String subject = tokenCache.getSubject(token);
+        if (subject == null) {
+            try {
+                Claims claims = jwtService.parseClaims(token);
+                subject = claims.getSubject();
+                long expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+                tokenCache.put(token, subject, expiresAt);
+            } catch (JwtException | IllegalArgumentException e) {
+                // A stale token left in the client must not keep it from logging in again
+                if (anonymousPaths.matches(request)) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"message\":\"Invalid or expired token\"}");
+                return;
+            }
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(subject, null, Collections.emptyList()));
+        filterChain.doFilter(request, response);
+    }
+}
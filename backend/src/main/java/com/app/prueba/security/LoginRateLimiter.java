@@ -0,0 +1,185 @@
+package com.app.prueba.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits login attempts per client address and failed logins per account
+ * within fixed windows of rate-limit.window-ms. Accounts are counted by user
+ * id, so failures with the username and with the email of one account add up.
+ *
+ * Counters live in a count-min sketch: ROWS rows of a power-of-two number of
+ * stripes, each key counted in one stripe per row and read as the smallest of
+ * its counts. Memory stays fixed however many addresses and accounts are seen,
+ * and a collision can only overestimate a count. Each row hashes the key bytes
+ * with its own seed, so keys sharing a stripe in one row rarely share it in
+ * the others, and rows get STRIPES_PER_KEY stripes for each of the
+ * rate-limit.expected-keys addresses and accounts counted in a window: up to
+ * that load, a key is blocked by the counts of others with a chance below 1 in
+ * 5000 even if all of them are blocked. Each stripe packs the window
+ * it counts in the high 32 bits and the count in the low 32 bits of one
+ * AtomicLongArray element, updated with compare-and-set, so a stripe from an
+ * older window restarts at zero without a cleanup pass and no locks are taken.
+ * Rows are updated one after the other, so attempts racing on the same key
+ * can each see a lower count than their own in one row and overshoot a limit
+ * by at most the number of concurrent attempts.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final int ROWS = 4;
+
+    private static final int STRIPES_PER_KEY = 8;
+
+    private static final long COUNT_MASK = 0xffffffffL;
+
+    private final AtomicLongArray stripes;
+
+    private final int mask;
+
+    private final long windowMs;
+
+    private final int perIp;
+
+    private final int perAccount;
+
+    private final LongSupplier clock;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${security.login.rate-limit.window-ms:60000}") long windowMs,
+            @Value("${security.login.rate-limit.per-ip:30}") int perIp,
+            @Value("${security.login.rate-limit.per-account:5}") int perAccount,
+            @Value("${security.login.rate-limit.expected-keys:16384}") int expectedKeys) {
+        this(windowMs, perIp, perAccount, expectedKeys, System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(long windowMs, int perIp, int perAccount, int expectedKeys, LongSupplier clock) {
+        if (windowMs <= 0 || expectedKeys <= 0 || expectedKeys > (1 << 30) / (ROWS * STRIPES_PER_KEY)) {
+            throw new IllegalArgumentException("window-ms and expected-keys must be positive, expected-keys at most "
+                    + (1 << 30) / (ROWS * STRIPES_PER_KEY));
+        }
+        int stripes = expectedKeys * STRIPES_PER_KEY;
+        int size = Integer.highestOneBit(stripes);
+        size = size < stripes ? size << 1 : size;
+        this.stripes = new AtomicLongArray(ROWS * size);
+        this.mask = size - 1;
+        this.windowMs = windowMs;
+        this.perIp = perIp;
+        this.perAccount = perAccount;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a login attempt from the address.
+     *
+     * @return false if the address made too many attempts in the current window
+     */
+    public boolean tryAcquire(String ip) {
+        return ip == null || increment(ipKey(ip), window()) <= perIp;
+    }
+
+    /**
+     * @return true if the user had too many failed logins in the current window
+     */
+    public boolean isBlocked(int userId) {
+        return estimate(accountKey(userId), window()) >= perAccount;
+    }
+
+    public void failed(int userId) {
+        increment(accountKey(userId), window());
+    }
+
+    /**
+     * @return seconds until the current window ends and the counts restart
+     */
+    public long retryAfterSeconds() {
+        long remaining = windowMs - Math.floorMod(clock.getAsLong(), windowMs);
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+
+    private long increment(String key, int window) {
+        long min = Long.MAX_VALUE;
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(bytes, row);
+            long current;
+            long next;
+            do {
+                current = stripes.get(index);
+                long count = (int) (current >>> 32) == window ? current & COUNT_MASK : 0;
+                next = (long) window << 32 | Math.min(count + 1, COUNT_MASK);
+            } while (!stripes.compareAndSet(index, current, next));
+            min = Math.min(min, next & COUNT_MASK);
+        }
+        return min;
+    }
+
+    private long estimate(String key, int window) {
+        long min = Long.MAX_VALUE;
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        for (int row = 0; row < ROWS; row++) {
+            long current = stripes.get(index(bytes, row));
+            min = Math.min(min, (int) (current >>> 32) == window ? current & COUNT_MASK : 0);
+        }
+        return min;
+    }
+
+    // Row r reads its own part of the array, indexed by the key hashed with seed r
+    private int index(byte[] key, int row) {
+        return row * (mask + 1) + (murmur3(key, row) & mask);
+    }
+
+    private int window() {
+        return (int) Math.floorDiv(clock.getAsLong(), windowMs);
+    }
+
+    private static String ipKey(String ip) {
+        return "ip " + ip;
+    }
+
+    private static String accountKey(int userId) {
+        return "user " + userId;
+    }
+
+    // MurmurHash3 x86 32-bit
+    private static int murmur3(byte[] data, int seed) {
+        int h = seed;
+        int blocks = data.length & ~3;
+        for (int i = 0; i < blocks; i += 4) {
+            int k = data[i] & 0xff | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff) << 16 | data[i + 3] << 24;
+            h ^= mixK(k);
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        switch (data.length & 3) {
+            case 3:
+                k ^= (data[blocks + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[blocks + 1] & 0xff) << 8;
+            case 1:
+                k ^= data[blocks] & 0xff;
+                h ^= mixK(k);
+        }
+        return fmix(h ^ data.length);
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,152 @@
+package com.app.prueba.security;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.app.prueba.dto.UserIdentifiers;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.util.BloomFilter;
+
+/**
+ * Usernames and emails of existing users in a Bloom filter, so logins with an
+ * identifier no user has are rejected without querying the database.
+ *
+ * Users registered or updated through this instance are added right away.
+ * Every refresh-interval-ms the users inserted or updated since the previous
+ * refresh, by updated_at, are read too, which covers users registered or
+ * renamed through other instances whatever their id. Each refresh reads back
+ * refresh-overlap-ms before the previous one, for clock skew between
+ * instances and transactions that commit after their timestamp was taken.
+ * The filter is rebuilt every rebuild-interval-ms, which drops identifiers no
+ * longer in use. Until the first load completes every identifier is reported
+ * as possibly existing.
+ */
+@Component
+public class UserIdentifierFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIdentifierFilter.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final long expectedUsers;
+
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // The filter being rebuilt, which identifiers added meanwhile also go to
+    private volatile BloomFilter rebuilding;
+
+    private final long refreshOverlapMs;
+
+    private volatile boolean loaded;
+
+    // Not synchronized: loads run queries, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Start of the last load, guarded by lock
+    private Instant loadedAt;
+
+    public UserIdentifierFilter(@Value("${security.login.identifier-filter.expected-users:1000000}") long expectedUsers,
+            @Value("${security.login.identifier-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${security.login.identifier-filter.refresh-overlap-ms:60000}") long refreshOverlapMs) {
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshOverlapMs = refreshOverlapMs;
+        this.filter = BloomFilter.create(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${security.login.identifier-filter.rebuild-interval-ms:600000}",
+            initialDelayString = "${security.login.identifier-filter.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        lock.lock();
+        try {
+            Instant started = Instant.now();
+            BloomFilter rebuilt = BloomFilter.create(expectedUsers, falsePositiveRate);
+            rebuilding = rebuilt;
+            int loadedUsers = load(rebuilt,
+                    after -> userRepository.findIdentifiersAfter(after, Limit.of(LOAD_BATCH_SIZE)));
+            filter = rebuilt;
+            loadedAt = started;
+            loaded = true;
+            logger.info("Login identifier filter loaded with {} users", loadedUsers);
+        } finally {
+            rebuilding = null;
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.login.identifier-filter.refresh-interval-ms:5000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Instant started = Instant.now();
+            Instant since = loadedAt.minusMillis(refreshOverlapMs);
+            load(filter,
+                    after -> userRepository.findIdentifiersChangedSince(since, after, Limit.of(LOAD_BATCH_SIZE)));
+            loadedAt = started;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if no user has this username or email
+     */
+    public boolean mightExist(String identifier) {
+        return identifier != null && (!loaded || filter.mightContain(identifier));
+    }
+
+    public void add(String username, String email) {
+        // The filter being rebuilt first: once it replaces the current one it is the only one read
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            put(next, username, email);
+        }
+        put(filter, username, email);
+    }
+
+    // Reads keyset pages, each after the last id of the previous one
+    private static int load(BloomFilter target, IntFunction<List<UserIdentifiers>> pageAfter) {
+        int loadedUsers = 0;
+        int after = 0;
+        List<UserIdentifiers> batch;
+        do {
+            batch = pageAfter.apply(after);
+            for (UserIdentifiers user : batch) {
+                put(target, user.username(), user.email());
+                after = user.id();
+            }
+            loadedUsers += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return loadedUsers;
+    }
+
+    private static void put(BloomFilter target, String username, String email) {
+        if (username != null) {
+            target.put(username);
+        }
+        if (email != null) {
+            target.put(email);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.app.prueba.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, so
+ * repeated requests with the same token skip the HMAC check and claims parsing.
+ * A Caffeine cache, so lookups from concurrent requests do not contend on a
+ * lock and a full cache evicts by its approximate frequency and recency policy.
+ *
+ * Entries are keyed by the signature segment of the token (itself an HMAC of
+ * header and payload) and keep the whole token, which is compared on lookup so
+ * a forged token reusing a cached signature is never accepted. An entry lives
+ * until the token expires or jwt.cache.max-ttl-ms elapses, whichever is first.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private record Entry(String token, String subject, long expiresAt) {
+    }
+
+    private final long maxTtlMs;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final Cache<String, Entry> entries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize,
+            @Value("${jwt.cache.max-ttl-ms:300000}") long maxTtlMs) {
+        this.maxTtlMs = maxTtlMs;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .evictionListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the subject of a previously verified token, or null if the token
+     * is unknown or its entry has expired.
+     */
+    public String getSubject(String token) {
+        Entry entry = entries.getIfPresent(signatureOf(token));
+        if (entry == null || !entry.token().equals(token)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.subject();
+    }
+
+    public void put(String token, String subject, long tokenExpiresAt) {
+        long expiresAt = Math.min(tokenExpiresAt, System.currentTimeMillis() + maxTtlMs);
+        entries.put(signatureOf(token), new Entry(token, subject, expiresAt));
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    // Runs the pending evictions first, so the size is not an estimate
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.cache.requests", hits, LongAdder::sum).tag("result", "hit")
+                .description("Token lookups served from the verified token cache").register(registry);
+        FunctionCounter.builder("jwt.cache.requests", misses, LongAdder::sum).tag("result", "miss")
+                .description("Token lookups that required signature verification").register(registry);
+        FunctionCounter.builder("jwt.cache.evictions", evictions, LongAdder::sum)
+                .description("Tokens evicted because the cache was full").register(registry);
+        Gauge.builder("jwt.cache.size", this, VerifiedTokenCache::size)
+                .description("Verified tokens currently cached").register(registry);
+    }
+
+    // Each entry expires at its own expiresAt, reads do not extend it
+    private static class TokenExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static String signatureOf(String token) {
+        int separator = token.lastIndexOf('.');
+        return separator < 0 ? token : token.substring(separator + 1);
+    }
+}
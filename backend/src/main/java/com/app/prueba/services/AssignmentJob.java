@@ -0,0 +1,100 @@
+package com.app.prueba.services;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * State of one bulk card assignment run by {@link CardAssignmentService}.
+ * Written by the assignment thread and read by the status endpoint, hence the
+ * volatile fields.
+ */
+@Getter
+public class AssignmentJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+
+    // Distinct and sorted
+    @Getter(AccessLevel.PACKAGE)
+    private final int[] userIds;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final int[] cardIds;
+
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile int processedUsers;
+
+    private volatile int missingUsers;
+
+    private volatile long assigned;
+
+    private volatile long alreadyAssigned;
+
+    private volatile String error;
+
+    private volatile Instant finishedAt;
+
+    AssignmentJob(String id, int[] userIds, int[] cardIds) {
+        this.id = id;
+        this.userIds = userIds;
+        this.cardIds = cardIds;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    // Only the assignment thread writes, so the increments need no atomics
+    void progress(int users, int missing, long inserted, long existing) {
+        this.missingUsers += missing;
+        this.assigned += inserted;
+        this.alreadyAssigned += existing;
+        this.processedUsers += users;
+    }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public int getUsers() {
+        return userIds.length;
+    }
+
+    public int getCards() {
+        return cardIds.length;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("status", status);
+        response.put("users", userIds.length);
+        response.put("cards", cardIds.length);
+        response.put("processedUsers", processedUsers);
+        response.put("progress", processedUsers * 100 / userIds.length);
+        response.put("assigned", assigned);
+        response.put("alreadyAssigned", alreadyAssigned);
+        response.put("missingUsers", missingUsers);
+        response.put("createdAt", createdAt.toString());
+        response.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        response.put("error", error);
+        return response;
+    }
+}
@@ -1,76 +1,114 @@
 package com.app.prueba.services;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.crypto.SecretKey;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.app.prueba.dto.UserCredentials;
 import com.app.prueba.models.User;
 import com.app.prueba.repositories.UserRepository;
-
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import com.app.prueba.security.CredentialCache;
+import com.app.prueba.security.CredentialCache.Column;
+import com.app.prueba.security.LoginRateLimiter;
+import com.app.prueba.security.PasswordHasher;
+import com.app.prueba.security.UserIdentifierFilter;
 
 @Service
 public class AuthService {
 
+    public static final String TOO_MANY_ATTEMPTS = "Too many login attempts, try again later";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserIdentifierFilter userIdentifierFilter;
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     public Map<String, Object> register(User user) {
+        user.setPasswordHash(passwordHasher.hash(user.getPassword()));
         userRepository.save(user);
+        userIdentifierFilter.add(user.getUsername(), user.getEmail());
 
-        String token = generateToken(user);
         Map<String, Object> response = new HashMap<>();
-        response.put("token", token);
+        response.put("token", jwtService.generateToken(user.getUsername()));
         response.put("userId", user.getId());
-        response.put("isValid", validateToken(token));
+        // The token was just signed with the current key
+        response.put("isValid", true);
 
         return response;
     }
 
     public Map<String, Object> login(User user) {
         Map<String, Object> response = new HashMap<>();
-        User userFound = userRepository.findUserByUsernameOrEmail(user.getUsername(), user.getEmail());
-        if (userFound == null) {
+        UserCredentials credentials = findCredentials(user.getUsername(), user.getEmail());
+        if (credentials == null) {
             response.put("message", "Username or email not found");
             return response;
         }
-        if (!userFound.getPassword().equals(user.getPassword())) {
+        // Checked before the hash, so guessing at a blocked account costs no BCrypt work
+        if (loginRateLimiter.isBlocked(credentials.getId())) {
+            response.put("message", TOO_MANY_ATTEMPTS);
+            return response;
+        }
+        if (!passwordHasher.matches(user.getPassword(), credentials.getPassword())) {
+            loginRateLimiter.failed(credentials.getId());
             response.put("message", "Invalid password");
             return response;
         }
+        // Upgrade legacy plain text passwords and hashes made with an older cost
+        if (passwordHasher.needsRehash(credentials.getPassword())) {
+            userRepository.updatePassword(credentials.getId(), passwordHasher.hash(user.getPassword()));
+            credentialCache.invalidateUser(credentials.getId());
+        }
 
-        String token = generateToken(userFound);
-        response.put("token", token);
-        response.put("userId", userFound.getId());
-        response.put("isValid", validateToken(token));
+        response.put("token", jwtService.generateToken(credentials.getUsername()));
+        response.put("userId", credentials.getId());
+        response.put("isValid", true);
 
         return response;
     }
 
-    private String generateToken(User user) {
-        return Jwts.builder().subject(user.getUsername())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 1 día
-                .signWith(getSigningKey()).compact();
+    /**
+     * Looks each identifier up on the indexed column it belongs to instead of an
+     * OR over both columns. An email typed in the username field is looked up as
+     * an email first, and the email field is only tried if nothing matched.
+     * Identifiers no user has are skipped without a query, and credentials
+     * found are served from the cache on the next logins.
+     */
+    private UserCredentials findCredentials(String username, String email) {
+        UserCredentials credentials = null;
+        if (userIdentifierFilter.mightExist(username)) {
+            boolean looksLikeEmail = username.contains("@");
+            credentials = looksLikeEmail ? findByEmail(username) : findByUsername(username);
+            if (credentials == null && looksLikeEmail) {
+                credentials = findByUsername(username);
+            }
+        }
+        if (credentials == null && userIdentifierFilter.mightExist(email) && !email.equals(username)) {
+            credentials = findByEmail(email);
+        }
+        return credentials;
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor("your_256_bit_secret_key_your_256_bit_secret_key".getBytes(StandardCharsets.UTF_8));
+    private UserCredentials findByUsername(String username) {
+        return credentialCache.get(Column.USERNAME, username, userRepository::findCredentialsByUsername);
     }
 
-    private boolean validateToken(String token) {
-        try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+    private UserCredentials findByEmail(String email) {
+        return credentialCache.get(Column.EMAIL, email, userRepository::findCredentialsByEmail);
     }
 }
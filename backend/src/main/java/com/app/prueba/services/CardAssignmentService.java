@@ -0,0 +1,235 @@
+package com.app.prueba.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.prueba.config.BoundedExecutors;
+import com.app.prueba.dto.UserCardLink;
+import com.app.prueba.models.UserCards;
+import com.app.prueba.persistence.LinkConflicts;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Links a set of cards to a set of users, every card to every user, on a
+ * bounded background executor. Users are taken in batches of about
+ * cards.assignment.batch-size links, one transaction each. A batch runs three
+ * statements whatever its size: the users that exist, the links they already
+ * have, and one JDBC batch of INSERT ... ON CONFLICT DO NOTHING for the rest
+ * (on the (user_id, card_id) constraint only, see LinkConflicts).
+ * Ids come from the user_cards pooled sequence like any other insert, so a
+ * batch makes one sequence call per allocation block.
+ *
+ * Progress is kept on the {@link AssignmentJob}, finished jobs are dropped
+ * after cards.assignment.retention-ms. On PostgreSQL, reWriteBatchedInserts on
+ * the JDBC URL sends each batch as multi-row INSERTs.
+ */
+@Service
+public class CardAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardAssignmentService.class);
+
+
+    private record BatchResult(List<Integer> users, int missing, long inserted, long existing) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    private final int maxUsers;
+
+    private final int maxCards;
+
+    private final long retentionMs;
+
+    private final String insertLink;
+
+    private final ExecutorService executor;
+
+    private final Map<String, AssignmentJob> jobs = new ConcurrentHashMap<>();
+
+    public CardAssignmentService(@Value("${cards.assignment.batch-size:5000}") int batchSize,
+            @Value("${cards.assignment.max-users:100000}") int maxUsers,
+            @Value("${cards.assignment.max-cards:1000}") int maxCards,
+            @Value("${cards.assignment.threads:1}") int threads,
+            @Value("${cards.assignment.queue:8}") int queueCapacity,
+            @Value("${cards.assignment.retention-ms:3600000}") long retentionMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            EntityManagerFactory entityManagerFactory) {
+        this.batchSize = batchSize;
+        this.maxUsers = maxUsers;
+        this.maxCards = maxCards;
+        this.retentionMs = retentionMs;
+        this.insertLink = "INSERT INTO user_cards (id, user_id, card_id) VALUES (?, ?, ?) "
+                + LinkConflicts.onLinkConflict(entityManagerFactory);
+        this.executor = BoundedExecutors.create("card-assignment", threads, queueCapacity, virtualThreads);
+    }
+
+    /**
+     * Starts linking the cards to the users. Ids of users that do not exist are
+     * counted and skipped by the job.
+     *
+     * @throws IllegalArgumentException   if a list is empty or too long, or a
+     *                                    card does not exist
+     * @throws RejectedExecutionException if too many assignments are queued
+     */
+    public AssignmentJob createJob(Collection<Integer> userIds, Collection<Integer> cardIds) {
+        int[] users = distinctSorted(userIds, "userIds");
+        int[] cards = distinctSorted(cardIds, "cardIds");
+        if (users.length > maxUsers || cards.length > maxCards) {
+            throw new IllegalArgumentException(
+                    "At most " + maxUsers + " users and " + maxCards + " cards per assignment");
+        }
+
+        Set<Integer> found = new HashSet<>(cardRepository.findIdsByIdIn(boxed(cards)));
+        if (found.size() != cards.length) {
+            List<Integer> missing = Arrays.stream(cards).filter(id -> !found.contains(id)).boxed().toList();
+            throw new IllegalArgumentException("Cards not found: " + missing);
+        }
+
+        AssignmentJob job = new AssignmentJob(UUID.randomUUID().toString(), users, cards);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public AssignmentJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    @Scheduled(fixedDelayString = "${cards.assignment.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant expiry = Instant.now().minusMillis(retentionMs);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(AssignmentJob job) {
+        job.start();
+        int[] users = job.getUserIds();
+        List<Integer> cards = boxed(job.getCardIds());
+        // Whole users per batch, so each user's links commit together
+        int usersPerBatch = Math.max(1, batchSize / cards.size());
+        Cache versions = cacheManager.getCache("userCardVersions");
+        try {
+            for (int from = 0; from < users.length; from += usersPerBatch) {
+                List<Integer> batch = boxed(Arrays.copyOfRange(users, from, Math.min(users.length, from + usersPerBatch)));
+                BatchResult result = transactionTemplate.execute(status -> assign(batch, cards));
+                if (versions != null) {
+                    result.users().forEach(versions::evict);
+                }
+                job.progress(batch.size(), result.missing(), result.inserted(), result.existing());
+            }
+            job.complete();
+        } catch (RuntimeException e) {
+            logger.error("Card assignment {} failed", job.getId(), e);
+            job.fail("Assignment failed");
+        }
+    }
+
+    private BatchResult assign(List<Integer> batch, List<Integer> cards) {
+        List<Integer> users = userRepository.findIdsByIdIn(batch);
+        Set<UserCardLink> linked = new HashSet<>(userCardsRepository.findLinks(users, cards));
+
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator ids = linkIdGenerator();
+        List<Object[]> rows = new ArrayList<>(users.size() * cards.size() - linked.size());
+        for (Integer userId : users) {
+            for (Integer cardId : cards) {
+                if (!linked.contains(new UserCardLink(userId, cardId))) {
+                    rows.add(new Object[] { ids.generate(session, null), userId, cardId });
+                }
+            }
+        }
+
+        long inserted = 0;
+        if (!rows.isEmpty()) {
+            for (int count : jdbcTemplate.batchUpdate(insertLink, rows)) {
+                // Drivers that rewrite batches report SUCCESS_NO_INFO (-2) per row
+                inserted += count != 0 ? 1 : 0;
+            }
+        }
+        long existing = (long) users.size() * cards.size() - inserted;
+        return new BatchResult(users, batch.size() - users.size(), inserted, existing);
+    }
+
+    private IdentifierGenerator linkIdGenerator() {
+        return (IdentifierGenerator) entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .getEntityDescriptor(UserCards.class).getGenerator();
+    }
+
+    private static int[] distinctSorted(Collection<Integer> ids, String name) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException(name + " must not be empty");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(name + " must not contain null");
+        }
+        return ids.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+    }
+
+    private static List<Integer> boxed(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
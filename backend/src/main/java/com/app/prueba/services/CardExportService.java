@@ -0,0 +1,271 @@
+package com.app.prueba.services;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.app.prueba.config.BoundedExecutors;
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Card exports to files, run on a bounded background executor so request
+ * threads never wait on the database walk or on disk. A job selects cards by
+ * id range, by user or both, reads them in keyset batches and streams them into
+ * a single gzip-compressed NDJSON or ZIP file. The file is written under a
+ * temporary name and moved into place once complete, so a download never sees
+ * a partial file. Finished jobs and their files are dropped after
+ * cards.export.retention-ms.
+ *
+ * When the executor queue is full new work is rejected with
+ * {@link RejectedExecutionException}. Exports run on virtual threads when
+ * spring.threads.virtual.enabled is set, see {@link BoundedExecutors}.
+ */
+@Service
+public class CardExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardExportService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    public enum Format {
+        NDJSON("ndjson.gz", "application/gzip"), ZIP("zip", "application/zip");
+
+        private final String extension;
+
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Path directory;
+
+    private final long retentionMs;
+
+    private final ExecutorService executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public CardExportService(@Value("${cards.export.directory:examples}") String directory,
+            @Value("${cards.export.threads:2}") int threads,
+            @Value("${cards.export.queue:16}") int queueCapacity,
+            @Value("${cards.export.retention-ms:3600000}") long retentionMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.directory = Path.of(directory).toAbsolutePath();
+        this.retentionMs = retentionMs;
+        this.executor = BoundedExecutors.create("card-export", threads, queueCapacity, virtualThreads);
+    }
+
+    public ExportJob createJob(Format format, Integer fromId, Integer toId, Integer userId) {
+        if (userId != null && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), format, fromId, toId, userId);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public ExportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Writes a single card to &lt;id&gt;-card-&lt;name&gt;.json in the export
+     * directory without waiting for the write. Failures are only logged.
+     */
+    public void exportCard(CardView card, Map<String, Object> data) {
+        executor.execute(() -> {
+            Path target = directory.resolve(card.id() + "-card-" + safeFileName(card.name()) + ".json");
+            try {
+                writeAtomically(target, outputStream -> objectMapper.writeValue(outputStream, data));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not export card {} to {}", card.id(), target, e);
+            }
+        });
+    }
+
+    public void writeFile(ExportJob job, OutputStream outputStream) throws IOException {
+        Files.copy(job.getFile(), outputStream);
+    }
+
+    @Scheduled(fixedDelayString = "${cards.export.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        Instant expiry = Instant.now().minusMillis(retentionMs);
+        jobs.values().removeIf(job -> {
+            if (job.getFinishedAt() == null || job.getFinishedAt().isAfter(expiry)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                try {
+                    Files.deleteIfExists(job.getFile());
+                } catch (IOException e) {
+                    logger.warn("Could not delete export file {}", job.getFile(), e);
+                }
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(ExportJob job) {
+        job.start();
+        Path target = directory.resolve(job.getFileName());
+        try {
+            writeAtomically(target, outputStream -> {
+                if (job.getFormat() == Format.ZIP) {
+                    writeZip(job, outputStream);
+                } else {
+                    writeNdjson(job, outputStream);
+                }
+            });
+            job.complete(target);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Card export {} failed", job.getId(), e);
+            job.fail("Export failed");
+        }
+    }
+
+    private void writeNdjson(ExportJob job, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(outputStream, 64 * 1024);
+        JsonGenerator generator = createGenerator(gzip);
+        ObjectWriter writer = objectMapper.writerFor(Cards.class);
+
+        forEachBatch(job, cards -> {
+            for (Cards card : cards) {
+                writer.writeValue(generator, card);
+                generator.writeRaw('\n');
+            }
+        });
+        generator.flush();
+        gzip.finish();
+    }
+
+    private void writeZip(ExportJob job, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        JsonGenerator generator = createGenerator(zip);
+        ObjectWriter writer = objectMapper.writerFor(Cards.class);
+
+        forEachBatch(job, cards -> {
+            for (Cards card : cards) {
+                zip.putNextEntry(new ZipEntry(card.getId() + "-card-" + safeFileName(card.getName()) + ".json"));
+                writer.writeValue(generator, card);
+                generator.flush();
+                zip.closeEntry();
+            }
+        });
+        zip.finish();
+    }
+
+    private void forEachBatch(ExportJob job, BatchWriter batchWriter) throws IOException {
+        int after = job.getFromId() == null ? 0 : job.getFromId() - 1;
+        int toId = job.getToId() == null ? Integer.MAX_VALUE : job.getToId();
+        long exported = 0;
+
+        List<Cards> cards;
+        do {
+            cards = job.getUserId() == null
+                    ? cardRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(after, toId,
+                            Limit.of(BATCH_SIZE))
+                    : cardRepository.findCardsByUserIdAfter(job.getUserId(), after, toId, Limit.of(BATCH_SIZE));
+            if (cards.isEmpty()) {
+                break;
+            }
+            batchWriter.write(cards);
+            after = cards.get(cards.size() - 1).getId();
+            exported += cards.size();
+            job.progress(exported);
+        } while (cards.size() == BATCH_SIZE);
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeAtomically(Path target, FileWriter fileWriter) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            fileWriter.write(outputStream);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String safeFileName(String name) {
+        return name == null ? "" : name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(List<Cards> cards) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+}
@@ -0,0 +1,242 @@
+package com.app.prueba.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.app.prueba.models.UserCards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.validations.EntityValidator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Bulk card import. The file (a JSON array or NDJSON) is read one card at a
+ * time with the streaming parser, and valid cards are inserted in chunks, one
+ * transaction per chunk, so Hibernate can batch the inserts (see
+ * hibernate.jdbc.batch_size). Names already in use, or repeated in the file,
+ * are split off against the card name index before a chunk is inserted, so
+ * duplicates do not roll back the chunk. If a chunk is still rejected by the
+ * database its cards are retried one by one to report exactly which lines
+ * failed.
+ */
+@Service
+public class CardImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    static final String INSERT_FAILED = "Card could not be inserted";
+
+    private static final TypeReference<Map<String, Object>> CARD_MAP_TYPE = new TypeReference<>() {
+    };
+
+    private record PendingCard(long line, String name, String description) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityValidator entityValidator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cards.import.chunk-size:500}")
+    private int chunkSize;
+
+    @CacheEvict(cacheNames = "userCardVersions", key = "#userId")
+    public Map<String, Object> importCards(InputStream inputStream, int userId) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+
+        List<Map<String, Object>> errors = new ArrayList<>();
+        List<PendingCard> chunk = new ArrayList<>(chunkSize);
+        int imported = 0;
+        int failed = 0;
+
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                long line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    failed++;
+                    addError(errors, line, Map.of("card", "Expected a JSON object"));
+                    token = parser.nextToken();
+                    continue;
+                }
+
+                Map<String, Object> cardMap = objectMapper.readValue(parser, CARD_MAP_TYPE);
+                Map<String, String> violations = validate(cardMap);
+                if (violations.isEmpty()) {
+                    chunk.add(new PendingCard(line, (String) cardMap.get("name"), (String) cardMap.get("description")));
+                } else {
+                    failed++;
+                    addError(errors, line, violations);
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    int saved = saveChunk(chunk, userId, errors);
+                    imported += saved;
+                    failed += chunk.size() - saved;
+                    chunk.clear();
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // The streaming parser cannot resynchronise after malformed input
+            failed++;
+            addError(errors, e.getLocation() == null ? -1 : e.getLocation().getLineNr(),
+                    Map.of("file", "Invalid JSON format"));
+        }
+
+        if (!chunk.isEmpty()) {
+            int saved = saveChunk(chunk, userId, errors);
+            imported += saved;
+            failed += chunk.size() - saved;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("imported", imported);
+        response.put("failed", failed);
+        response.put("errors", errors);
+
+        return response;
+    }
+
+    private Map<String, String> validate(Map<String, Object> cardMap) {
+        Map<String, String> violations = new LinkedHashMap<>();
+        Object name = cardMap.get("name");
+        Object description = cardMap.get("description");
+        if (name != null && !(name instanceof String)) {
+            violations.put("name", "Name must be a string");
+        }
+        if (description != null && !(description instanceof String)) {
+            violations.put("description", "Description must be a string");
+        }
+        if (!violations.isEmpty()) {
+            return violations;
+        }
+
+        Cards card = new Cards();
+        card.setName((String) name);
+        card.setDescription((String) description);
+        return entityValidator.validate(card);
+    }
+
+    private int saveChunk(List<PendingCard> chunk, int userId, List<Map<String, Object>> errors) {
+        CardNameIndex.Partition<PendingCard> partition = cardNameIndex.reserveAll(chunk, PendingCard::name);
+        for (PendingCard duplicate : partition.duplicates()) {
+            addError(errors, duplicate.line(), Map.of("name", CardNameIndex.DUPLICATE_NAME));
+        }
+        List<PendingCard> pendingCards = partition.reserved();
+        if (pendingCards.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            insert(pendingCards, userId);
+            return pendingCards.size();
+        } catch (DataIntegrityViolationException e) {
+            int saved = 0;
+            for (PendingCard pendingCard : pendingCards) {
+                try {
+                    insert(List.of(pendingCard), userId);
+                    saved++;
+                } catch (DataIntegrityViolationException ex) {
+                    // A name stored outside this application, or another constraint (the user was deleted)
+                    addError(errors, pendingCard.line(), cardRepository.existsByName(pendingCard.name())
+                            ? Map.of("name", CardNameIndex.DUPLICATE_NAME)
+                            : Map.of("card", INSERT_FAILED));
+                }
+            }
+            return saved;
+        }
+    }
+
+    private void insert(List<PendingCard> pendingCards, int userId) {
+        List<Cards> cards = new ArrayList<>(pendingCards.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = entityManager.getReference(User.class, userId);
+                List<UserCards> userCards = new ArrayList<>(pendingCards.size());
+                for (PendingCard pendingCard : pendingCards) {
+                    Cards card = new Cards();
+                    card.setName(pendingCard.name());
+                    card.setDescription(pendingCard.description());
+                    cards.add(card);
+
+                    UserCards userCard = new UserCards();
+                    userCard.setUser(user);
+                    userCard.setCard(card);
+                    userCards.add(userCard);
+                }
+                cardRepository.saveAll(cards);
+                userCardsRepository.saveAll(userCards);
+            });
+        } catch (RuntimeException e) {
+            // Rolled back: the names are free again (a retry inserts without reserving)
+            pendingCards.forEach(pendingCard -> cardNameIndex.release(pendingCard.name()));
+            throw e;
+        }
+        // Indexed once committed: a rolled back chunk leaves the indexes untouched
+        cardNameIndex.addedAll(cards);
+        cardSearchIndex.indexAll(cards);
+    }
+
+    private static void addError(List<Map<String, Object>> errors, long line, Map<String, String> violations) {
+        if (errors.size() >= MAX_REPORTED_ERRORS) {
+            return;
+        }
+        Map<String, Object> error = new HashMap<>();
+        error.put("line", line);
+        error.put("errors", violations);
+        errors.add(error);
+    }
+}
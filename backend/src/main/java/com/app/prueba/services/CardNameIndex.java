@@ -0,0 +1,238 @@
+package com.app.prueba.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.util.BloomFilter;
+
+/**
+ * Card names in use, so inserts with a duplicate name are rejected before
+ * they reach the database. Names map to the id of their card; a Bloom filter
+ * in front answers most lookups of new names without probing the map.
+ *
+ * Writers reserve a name before inserting, which is atomic: of two concurrent
+ * requests for the same name only one gets it. The reservation is released if
+ * the insert fails and becomes the card id once it succeeds. The unique
+ * constraint on cards.name stays as the last check for names written outside
+ * this application.
+ *
+ * Inside a transaction, added names are dropped again if it rolls back and
+ * removed names are only dropped once it commits.
+ *
+ * Cards renamed or deleted by another instance leave stale entries behind,
+ * so a name is only rejected once cards.name confirms it: an entry whose card
+ * is gone or has another name is repaired from the database first. Only
+ * rejections pay for that query.
+ */
+@Service
+public class CardNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardNameIndex.class);
+
+    public static final String DUPLICATE_NAME = "Card name already exists";
+
+    private static final int WARM_BATCH_SIZE = 1000;
+
+    // Card ids start at 1
+    private static final Integer RESERVED = 0;
+
+    public record Partition<T>(List<T> reserved, List<T> duplicates) {
+    }
+
+    private final Map<String, Integer> cardIds = new ConcurrentHashMap<>();
+
+    private final BloomFilter filter;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    public CardNameIndex(@Value("${cards.name-index.expected-names:1000000}") long expectedNames,
+            @Value("${cards.name-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.filter = BloomFilter.create(expectedNames, falsePositiveRate);
+    }
+
+    /**
+     * Replaces the names with the ones in the database. Runs once the
+     * application is ready, before that every name is reported as free.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        cardIds.clear();
+        int after = 0;
+        List<CardView> batch;
+        do {
+            batch = cardRepository.findViewsAfter(after, Limit.of(WARM_BATCH_SIZE));
+            for (CardView card : batch) {
+                filter.put(card.name());
+                cardIds.putIfAbsent(card.name(), card.id());
+                after = card.id();
+            }
+        } while (batch.size() == WARM_BATCH_SIZE);
+        logger.info("Card name index loaded with {} names", cardIds.size());
+    }
+
+    public boolean contains(String name) {
+        return cardId(name) != null;
+    }
+
+    /**
+     * Id of the card with this name, 0 while it is reserved by an insert in
+     * progress, or null if no card has it.
+     */
+    public Integer cardId(String name) {
+        return name != null && filter.mightContain(name) ? cardIds.get(name) : null;
+    }
+
+    /**
+     * The stored card with this name and description, for writes that may
+     * repeat an earlier one and should link that card again instead of failing.
+     *
+     * @return null if no card has the name
+     * @throws DuplicateKeyException if a different card has the name, or an
+     *                               insert in progress reserved it
+     */
+    public Cards existingCard(String name, String description) {
+        Integer cardId = cardId(name);
+        if (cardId == null) {
+            return null;
+        }
+        if (RESERVED.equals(cardId)) {
+            throw new DuplicateKeyException(DUPLICATE_NAME);
+        }
+        Cards card = cardRepository.findById(cardId).orElse(null);
+        if (card == null || !name.equals(card.getName())) {
+            Integer storedId = repair(name, cardId);
+            if (storedId == null) {
+                return null;
+            }
+            card = cardRepository.findById(storedId).orElse(null);
+        }
+        if (card == null || !Objects.equals(description, card.getDescription())) {
+            throw new DuplicateKeyException(DUPLICATE_NAME);
+        }
+        return card;
+    }
+
+    /**
+     * Takes the name for a card about to be inserted.
+     *
+     * @return false if a card has the name or another insert reserved it
+     */
+    public boolean reserve(String name) {
+        Integer cardId = cardId(name);
+        if (cardId != null && (RESERVED.equals(cardId) || repair(name, cardId) != null)) {
+            return false;
+        }
+        filter.put(name);
+        return cardIds.putIfAbsent(name, RESERVED) == null;
+    }
+
+    /**
+     * {@link #reserve(String)} for inserts that fail like the unique constraint
+     * would.
+     *
+     * @throws DuplicateKeyException if the name is taken
+     */
+    public void reserveOrThrow(String name) {
+        if (!reserve(name)) {
+            throw new DuplicateKeyException(DUPLICATE_NAME);
+        }
+    }
+
+    /**
+     * Reserves the names of a batch in one pass. Names already in use, and
+     * repeated names after their first occurrence, end up in duplicates.
+     */
+    public <T> Partition<T> reserveAll(Collection<T> items, Function<T, String> name) {
+        List<T> reserved = new ArrayList<>(items.size());
+        List<T> duplicates = new ArrayList<>();
+        for (T item : items) {
+            (reserve(name.apply(item)) ? reserved : duplicates).add(item);
+        }
+        return new Partition<>(reserved, duplicates);
+    }
+
+    // The insert failed, the name is free again
+    public void release(String name) {
+        cardIds.remove(name, RESERVED);
+    }
+
+    public void added(Cards card) {
+        String name = card.getName();
+        int cardId = card.getId();
+        filter.put(name);
+        cardIds.put(name, cardId);
+        afterCompletion(committed -> {
+            if (!committed) {
+                cardIds.remove(name, cardId);
+            }
+        });
+    }
+
+    public void addedAll(Collection<Cards> cards) {
+        cards.forEach(this::added);
+    }
+
+    public void removed(String name, int cardId) {
+        afterCompletion(committed -> {
+            if (committed) {
+                cardIds.remove(name, cardId);
+            }
+        });
+    }
+
+    /**
+     * Points the name at the card that has it in the database, or drops it
+     * when none does.
+     *
+     * @return the id of the card with the name, null if it is free
+     */
+    private Integer repair(String name, Integer cardId) {
+        Integer storedId = cardRepository.findIdByName(name).orElse(null);
+        if (storedId == null) {
+            cardIds.remove(name, cardId);
+        } else if (!storedId.equals(cardId)) {
+            cardIds.replace(name, cardId, storedId);
+        }
+        return storedId;
+    }
+
+    public int size() {
+        return cardIds.size();
+    }
+
+    // Runs now, as committed, outside a transaction
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
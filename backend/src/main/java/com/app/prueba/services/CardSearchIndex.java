@@ -0,0 +1,335 @@
+package com.app.prueba.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+
+/**
+ * In-process inverted index over card names and descriptions for prefix
+ * search. Terms are lower-cased words without accents, kept sorted so every
+ * term starting with a prefix is a range of the skip list. It is loaded once
+ * the application is ready and kept up to date by the services that write
+ * cards, after their changes are committed.
+ *
+ * Each term maps to the sorted ids of the cards containing it, as a plain int
+ * array. Names and descriptions have separate terms, so the score of a card
+ * follows from the terms it was found under, and a query is a few merges of
+ * sorted arrays instead of a lookup per candidate card.
+ *
+ * Searches are lock free and read immutable snapshots of the postings. Writes
+ * are serialized, which keeps the postings and the per-card entries consistent
+ * with each other.
+ */
+@Service
+public class CardSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final String[] NO_TOKENS = {};
+
+    private static final int WARM_BATCH_SIZE = 1000;
+
+    // Per query term: exact and prefix matches in the name weigh more than in the description
+    private static final float NAME_EXACT = 4, NAME_PREFIX = 2, DESCRIPTION_EXACT = 1, DESCRIPTION_PREFIX = 0.5f;
+
+    public record Result(List<Integer> ids, int total) {
+    }
+
+    private record Entry(String[] nameTokens, String[] descriptionTokens) {
+    }
+
+    private record Hit(int id, float score) {
+    }
+
+    // Best hits first, ties in id order so pages are stable
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparingInt(Hit::id);
+
+    /**
+     * Sorted ids of the cards containing a term. Only the first size slots are
+     * read, so appending a larger id can reuse the array of the previous
+     * snapshot while searches are still reading it.
+     */
+    private record Posting(int[] ids, int size) {
+
+        Posting with(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return this;
+            }
+            at = -at - 1;
+            if (at == size && size < ids.length) {
+                ids[size] = id;
+                return new Posting(ids, size + 1);
+            }
+            int[] copy = new int[Math.max(4, size + (size >> 1) + 1)];
+            System.arraycopy(ids, 0, copy, 0, at);
+            copy[at] = id;
+            System.arraycopy(ids, at, copy, at + 1, size - at);
+            return new Posting(copy, size + 1);
+        }
+
+        // null once the last id is gone
+        Posting without(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return this;
+            }
+            if (size == 1) {
+                return null;
+            }
+            int[] copy = new int[size - 1];
+            System.arraycopy(ids, 0, copy, 0, at);
+            System.arraycopy(ids, at + 1, copy, at, size - at - 1);
+            return new Posting(copy, size - 1);
+        }
+    }
+
+    /**
+     * Sorted card ids with their score so far. Scores are either per id or one
+     * constant for all of them, so a single posting needs no copy.
+     */
+    private record Matches(int[] ids, int size, float[] scores, float score) {
+
+        static final Matches NONE = new Matches(new int[0], 0, null, 0);
+
+        float scoreAt(int i) {
+            return scores == null ? score : scores[i];
+        }
+
+        // Cards in either, with their best score
+        Matches union(Matches other) {
+            int[] ids = new int[size + other.size];
+            float[] scores = new float[ids.length];
+            int i = 0, j = 0, n = 0;
+            while (i < size || j < other.size) {
+                int a = i < size ? this.ids[i] : Integer.MAX_VALUE;
+                int b = j < other.size ? other.ids[j] : Integer.MAX_VALUE;
+                if (j == other.size || i < size && a < b) {
+                    ids[n] = a;
+                    scores[n++] = scoreAt(i++);
+                } else if (i == size || b < a) {
+                    ids[n] = b;
+                    scores[n++] = other.scoreAt(j++);
+                } else {
+                    ids[n] = a;
+                    scores[n++] = Math.max(scoreAt(i++), other.scoreAt(j++));
+                }
+            }
+            return new Matches(ids, n, scores, 0);
+        }
+
+        // Cards in both, with their scores added; this should be the smaller one
+        Matches intersect(Matches other) {
+            int[] ids = new int[size];
+            float[] scores = new float[size];
+            int n = 0;
+            // Binary search through the larger side when it is much larger than a linear walk
+            boolean seek = (long) size * (32 - Integer.numberOfLeadingZeros(other.size)) < other.size;
+            for (int i = 0, j = 0; i < size && j < other.size; i++) {
+                int id = this.ids[i];
+                if (seek) {
+                    int at = Arrays.binarySearch(other.ids, j, other.size, id);
+                    j = at >= 0 ? at : -at - 1;
+                } else {
+                    while (j < other.size && other.ids[j] < id) {
+                        j++;
+                    }
+                }
+                if (j < other.size && other.ids[j] == id) {
+                    ids[n] = id;
+                    scores[n++] = scoreAt(i) + other.scoreAt(j++);
+                }
+            }
+            return new Matches(ids, n, scores, 0);
+        }
+    }
+
+    private final ConcurrentSkipListMap<String, Posting> nameTerms = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentSkipListMap<String, Posting> descriptionTerms = new ConcurrentSkipListMap<>();
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Value("${cards.search.min-prefix:2}")
+    private int minPrefix = 2;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        int after = 0;
+        List<CardView> batch;
+        do {
+            batch = cardRepository.findViewsAfter(after, Limit.of(WARM_BATCH_SIZE));
+            for (CardView card : batch) {
+                index(card.id(), card.name(), card.description());
+                after = card.id();
+            }
+        } while (batch.size() == WARM_BATCH_SIZE);
+        logger.info("Card search index loaded with {} cards, {} name terms and {} description terms",
+                entries.size(), nameTerms.size(), descriptionTerms.size());
+    }
+
+    public void index(Cards card) {
+        index(card.getId(), card.getName(), card.getDescription());
+    }
+
+    public void indexAll(Collection<Cards> cards) {
+        cards.forEach(this::index);
+    }
+
+    public synchronized void index(int id, String name, String description) {
+        Entry previous = entries.get(id);
+        Entry entry = new Entry(tokenize(name), tokenize(description));
+        if (previous != null) {
+            removeTerms(nameTerms, id, previous.nameTokens());
+            removeTerms(descriptionTerms, id, previous.descriptionTokens());
+        }
+        addTerms(nameTerms, id, entry.nameTokens());
+        addTerms(descriptionTerms, id, entry.descriptionTokens());
+        entries.put(id, entry);
+    }
+
+    public synchronized void remove(int id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            removeTerms(nameTerms, id, previous.nameTokens());
+            removeTerms(descriptionTerms, id, previous.descriptionTokens());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cards matching every word of the query as a word prefix, best first.
+     *
+     * @throws IllegalArgumentException if no query word has minPrefix characters
+     */
+    public Result search(String query, int limit, int offset) {
+        String[] queryTokens = Arrays.stream(tokenize(query)).filter(token -> token.length() >= minPrefix)
+                .distinct().toArray(String[]::new);
+        if (queryTokens.length == 0) {
+            throw new IllegalArgumentException("q must contain a word of at least " + minPrefix + " characters");
+        }
+
+        // Smallest first, so every intersection walks the fewest ids
+        Matches[] perToken = Arrays.stream(queryTokens).map(this::matches)
+                .sorted(Comparator.comparingInt(Matches::size)).toArray(Matches[]::new);
+        Matches matches = perToken[0];
+        for (int i = 1; i < perToken.length && matches.size() > 0; i++) {
+            matches = matches.intersect(perToken[i]);
+        }
+
+        // Keep only the top offset + limit hits, worst on top of the heap. Ids come
+        // in ascending order, so a later hit only displaces one with a lower score.
+        int wanted = offset + limit;
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(wanted, matches.size()) + 1, RANKING.reversed());
+        for (int i = 0; i < matches.size(); i++) {
+            float score = matches.scoreAt(i);
+            if (top.size() < wanted) {
+                top.add(new Hit(matches.ids()[i], score));
+            } else if (wanted > 0 && score > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(matches.ids()[i], score));
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Integer> page = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                .map(Hit::id).toList();
+        return new Result(page, matches.size());
+    }
+
+    // Every card with a word starting with the query token, scored by its best match
+    private Matches matches(String queryToken) {
+        List<Matches> runs = new ArrayList<>();
+        addRuns(runs, nameTerms, queryToken, NAME_EXACT, NAME_PREFIX);
+        addRuns(runs, descriptionTerms, queryToken, DESCRIPTION_EXACT, DESCRIPTION_PREFIX);
+        // Pairwise merges, O(n log runs) for prefixes spanning many terms
+        while (runs.size() > 1) {
+            List<Matches> merged = new ArrayList<>((runs.size() + 1) / 2);
+            for (int i = 0; i < runs.size(); i += 2) {
+                merged.add(i + 1 < runs.size() ? runs.get(i).union(runs.get(i + 1)) : runs.get(i));
+            }
+            runs = merged;
+        }
+        return runs.isEmpty() ? Matches.NONE : runs.get(0);
+    }
+
+    private static void addRuns(List<Matches> runs, ConcurrentSkipListMap<String, Posting> terms,
+            String queryToken, float exact, float prefix) {
+        for (Map.Entry<String, Posting> term : terms
+                .subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+            Posting posting = term.getValue();
+            runs.add(new Matches(posting.ids(), posting.size(), null,
+                    term.getKey().equals(queryToken) ? exact : prefix));
+        }
+    }
+
+    private static void addTerms(ConcurrentSkipListMap<String, Posting> terms, int id, String[] tokens) {
+        for (int i = 0; i < tokens.length; i++) {
+            Map.Entry<String, Posting> term = terms.ceilingEntry(tokens[i]);
+            if (term != null && term.getKey().equals(tokens[i])) {
+                // Keep the map's copy of the term so cards sharing a word share one String
+                tokens[i] = term.getKey();
+                terms.put(tokens[i], term.getValue().with(id));
+            } else {
+                terms.put(tokens[i], new Posting(new int[] { id }, 1));
+            }
+        }
+    }
+
+    private static void removeTerms(ConcurrentSkipListMap<String, Posting> terms, int id, String[] tokens) {
+        for (String token : tokens) {
+            Posting posting = terms.get(token);
+            if (posting == null) {
+                continue;
+            }
+            Posting remaining = posting.without(id);
+            if (remaining == null) {
+                terms.remove(token);
+            } else if (remaining != posting) {
+                terms.put(token, remaining);
+            }
+        }
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_TOKENS;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized)).filter(token -> !token.isEmpty()).distinct()
+                .toArray(String[]::new);
+    }
+}
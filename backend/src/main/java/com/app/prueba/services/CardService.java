@@ -1,18 +1,39 @@
 package com.app.prueba.services;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.CardPayload;
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.VersionedCardView;
 import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
 import com.app.prueba.models.UserCards;
+import com.app.prueba.persistence.ReplicaRead;
 import com.app.prueba.repositories.CardRepository;
 import com.app.prueba.repositories.UserCardsRepository;
 import com.app.prueba.repositories.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class CardService {
@@ -26,11 +47,75 @@ public class CardService {
     @Autowired
     private UserCardsRepository userCardsRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cards.payload-cache.gzip-min-size:256}")
+    private int gzipMinSize;
+
     public List<Cards> getAllCards() {
         return cardRepository.findAll();
     }
 
-    public Cards getCardById(Integer id) {
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCardsPage(Integer after, int limit) {
+        int cursor = after == null ? 0 : after;
+        // Fetch one extra row to know whether there is a next page without a COUNT
+        List<CardView> cards = cardRepository.findViewsAfter(cursor, Limit.of(limit + 1));
+
+        Integer nextCursor = null;
+        if (cards.size() > limit) {
+            cards = cards.subList(0, limit);
+            nextCursor = cards.get(limit - 1).id();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("cards", cards);
+        response.put("limit", limit);
+        response.put("nextCursor", nextCursor);
+
+        return response;
+    }
+
+    /**
+     * Ranked prefix search over card names and descriptions, see
+     * {@link CardSearchIndex}. Only the cards of the requested page are read.
+     */
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchCards(String query, int limit, int offset) {
+        CardSearchIndex.Result result = cardSearchIndex.search(query, limit, offset);
+
+        List<CardView> cards = List.of();
+        if (!result.ids().isEmpty()) {
+            Map<Integer, CardView> views = cardRepository.findViewsByIdIn(result.ids()).stream()
+                    .collect(Collectors.toMap(CardView::id, Function.identity()));
+            cards = result.ids().stream().map(views::get).filter(Objects::nonNull).toList();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("cards", cards);
+        response.put("total", result.total());
+        response.put("limit", limit);
+        response.put("offset", offset);
+
+        return response;
+    }
+
+    // Cached as the immutable read model, so callers never share an entity
+    @Cacheable(cacheNames = "cards", key = "#id", condition = "#id != null && #id > 0", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public CardView getCardById(Integer id) {
         if (!(id instanceof Integer)) {
             return null;
         } else if (id < 0) {
@@ -39,61 +124,184 @@ public class CardService {
             return null;
         }
 
-        if (cardRepository.existsById(id)) {
-            return cardRepository.findById(id).get();
+        return cardRepository.findVersionedViewById(id).map(VersionedCardView::card).orElse(null);
+    }
+
+    /**
+     * A copy of the card loaded for this caller only, to change and pass to
+     * {@link #updateCard(Cards)}. Null if it does not exist.
+     */
+    public Cards findCardForUpdate(int id) {
+        return cardRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Version of a card for conditional GETs, from the cache when the card is
+     * there and otherwise from a version-only query. Null if it does not exist.
+     * A card changed on another instance is only seen here once the cached
+     * payload expires (spring.cache.caffeine.spec).
+     */
+    @Transactional(readOnly = true)
+    public Long getCardVersion(int id) {
+        CardPayload payload = getCached("cardPayloads", id, CardPayload.class);
+        if (payload != null) {
+            return payload.version();
+        }
+        return cardRepository.findVersionById(id).orElse(null);
+    }
 
+    /**
+     * The card response serialized once and kept in the cardPayloads cache until
+     * the card is updated or deleted, so hot cards skip the database and Jackson.
+     * A gzip copy is kept too when the JSON is at least
+     * cards.payload-cache.gzip-min-size bytes and compresses smaller.
+     */
+    @Cacheable(cacheNames = "cardPayloads", key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public CardPayload getCardPayload(int id) {
+        VersionedCardView card = cardRepository.findVersionedViewById(id).orElse(null);
+        if (card == null) {
+            return null;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(card.card());
+            byte[] gzip = json.length >= gzipMinSize ? gzip(json) : null;
+            return new CardPayload(card.card().id(), card.version(), json,
+                    gzip != null && gzip.length < json.length ? gzip : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return null;
     }
 
+    /**
+     * @throws DuplicateKeyException if the name is taken, without going to the
+     *                               database
+     */
     public Map<String, Object> createCard(Cards card) {
-        cardRepository.save(card);
+        saveNew(card);
+        cardSearchIndex.index(card);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("card", card);
+        response.put("card", CardView.from(card));
 
         return response;
     }
 
+    // Every cached user and user card version goes too: users embed their cards and the
+    // owners of the card are not known here
+    @Caching(evict = {
+            @CacheEvict(cacheNames = { "cards", "cardPayloads" }, key = "#card.id"),
+            @CacheEvict(cacheNames = { "users", "userCardVersions" }, allEntries = true) })
     public Cards updateCard(Cards card) {
-        return cardRepository.save(card);
+        String name = card.getName();
+        // The previous name is only read when the index does not already have this one for the card
+        Integer cardId = cardNameIndex.cardId(name);
+        String previousName = cardId != null && cardId == card.getId() ? name
+                : cardRepository.findNameById(card.getId()).orElse(null);
+        boolean renamed = !name.equals(previousName);
+        if (renamed) {
+            cardNameIndex.reserveOrThrow(name);
+        }
+
+        Cards saved;
+        try {
+            saved = cardRepository.save(card);
+        } catch (RuntimeException e) {
+            if (renamed) {
+                cardNameIndex.release(name);
+            }
+            throw e;
+        }
+        if (renamed && previousName != null) {
+            cardNameIndex.removed(previousName, saved.getId());
+        }
+        cardNameIndex.added(saved);
+        cardSearchIndex.index(saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = { "cards", "cardPayloads" }, key = "#id"),
+            @CacheEvict(cacheNames = { "users", "userCardVersions" }, allEntries = true) })
     public void deleteCard(int id) {
+        String name = cardRepository.findNameById(id).orElse(null);
         cardRepository.deleteById(id);
+        if (name != null) {
+            cardNameIndex.removed(name, id);
+        }
+        cardSearchIndex.remove(id);
     }
 
     public Map<String, Object> exportCardToJSON(int id) throws IOException {
-        Cards card = cardRepository.findById(id).get();
+        return exportCardToJSON(cardRepository.findVersionedViewById(id).orElseThrow().card());
+    }
 
+    public Map<String, Object> exportCardToJSON(CardView card) {
         Map<String, Object> response = new HashMap<>();
-        response.put("id", card.getId());
-        response.put("name", card.getName());
-        response.put("description", card.getDescription());
+        response.put("id", card.id());
+        response.put("name", card.name());
+        response.put("description", card.description());
 
         return response;
     }
 
-    public Map<String, Object> importCardFromJSON(Map<String, Object> cardMap, int userId) {
-        if (userRepository.existsById(userId)) {
-            UserCards userCards = new UserCards();
-            userCards.setUser(userRepository.findById(userId).get());
+    // Inserts a card whose name was reserved first, freeing the name if the insert fails
+    private void saveNew(Cards card) {
+        cardNameIndex.reserveOrThrow(card.getName());
+        try {
+            cardRepository.save(card);
+        } catch (RuntimeException e) {
+            cardNameIndex.release(card.getName());
+            throw e;
+        }
+        cardNameIndex.added(card);
+    }
 
-            Cards card = new Cards();
-            card.setName((String) cardMap.get("name"));
-            card.setDescription((String) cardMap.get("description"));
+    private <T> T getCached(String cacheName, int id, Class<T> type) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache == null ? null : cache.get(id, type);
+    }
 
-            cardRepository.save(card);
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Imports a card for the user. Importing a card already stored with the
+     * same name and description links it to the user, once.
+     *
+     * @throws DuplicateKeyException if a different card has the name
+     */
+    @CacheEvict(cacheNames = { "users", "userCardVersions" }, key = "#userId")
+    public Map<String, Object> importCardFromJSON(Map<String, Object> cardMap, int userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String name = (String) cardMap.get("name");
+        String description = (String) cardMap.get("description");
+
+        Cards card = cardNameIndex.existingCard(name, description);
+        if (card != null) {
+            userCardsRepository.insertIfAbsent(userId, card.getId());
+        } else {
+            card = new Cards();
+            card.setName(name);
+            card.setDescription(description);
+            saveNew(card);
 
+            UserCards userCards = new UserCards();
+            userCards.setUser(user);
             userCards.setCard(card);
             userCardsRepository.save(userCards);
+            cardSearchIndex.index(card);
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("card", card);
-            response.put("user", userCards.getUser().getUsername());
+        Map<String, Object> response = new HashMap<>();
+        response.put("card", CardView.from(card));
+        response.put("user", user.getUsername());
 
-            return response;
-        }
-        throw new IllegalArgumentException("User not found");
+        return response;
     }
 }
@@ -0,0 +1,89 @@
+package com.app.prueba.services;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * State of one card export run by {@link CardExportService}. Written by the
+ * export thread and read by the status endpoint, hence the volatile fields.
+ */
+@Getter
+public class ExportJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+
+    private final CardExportService.Format format;
+
+    private final Integer fromId;
+
+    private final Integer toId;
+
+    private final Integer userId;
+
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile long exported;
+
+    private volatile Path file;
+
+    private volatile String error;
+
+    private volatile Instant finishedAt;
+
+    ExportJob(String id, CardExportService.Format format, Integer fromId, Integer toId, Integer userId) {
+        this.id = id;
+        this.format = format;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.userId = userId;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void progress(long exported) {
+        this.exported = exported;
+    }
+
+    void complete(Path file) {
+        this.file = file;
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public String getFileName() {
+        return "cards-" + id + "." + format.getExtension();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("status", status);
+        response.put("format", format);
+        response.put("fromId", fromId);
+        response.put("toId", toId);
+        response.put("userId", userId);
+        response.put("exported", exported);
+        response.put("createdAt", createdAt.toString());
+        response.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        response.put("error", error);
+        return response;
+    }
+}
@@ -0,0 +1,141 @@
+package com.app.prueba.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.MacAlgorithm;
+
+/**
+ * Issues and verifies JWTs. The HMAC key and the parser are built once and
+ * shared; both are immutable, so the hot path only allocates the token itself.
+ *
+ * The key can be rotated at runtime, either through {@link #rotate(String)} or
+ * by pointing jwt.secret-file at a file whose content is polled for changes.
+ * Tokens carry the key id in their header, and the previous key is kept for
+ * verification so tokens issued before a rotation stay valid until they expire.
+ */
+@Service
+public class JwtService {
+
+    private record SigningKey(String id, SecretKey key, MacAlgorithm algorithm) {
+    }
+
+    private final long expirationMs;
+
+    private final String secretFile;
+
+    private volatile SigningKey currentKey;
+
+    private volatile SigningKey previousKey;
+
+    private final JwtParser parser = Jwts.parser().keyLocator(this::locateKey).build();
+
+    public JwtService(@Value("${jwt.secret}") String secret,
+            @Value("${jwt.expiration-ms:86400000}") long expirationMs,
+            @Value("${jwt.secret-file:}") String secretFile) {
+        this.expirationMs = expirationMs;
+        this.secretFile = secretFile;
+        this.currentKey = createKey(secret);
+    }
+
+    public String generateToken(String subject) {
+        SigningKey signingKey = currentKey;
+        long now = System.currentTimeMillis();
+        return Jwts.builder().header().keyId(signingKey.id()).and()
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expirationMs))
+                .signWith(signingKey.key(), signingKey.algorithm()).compact();
+    }
+
+    /**
+     * Verifies the signature and expiration of the token and returns its claims.
+     *
+     * @throws JwtException if the token is malformed, expired or not signed by a
+     *                      known key
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public boolean validateToken(String token) {
+        try {
+            parseClaims(token);
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public synchronized void rotate(String secret) {
+        SigningKey newKey = createKey(secret);
+        if (newKey.id().equals(currentKey.id())) {
+            return;
+        }
+        previousKey = currentKey;
+        currentKey = newKey;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.secret-file-check-ms:30000}")
+    public void reloadSecretFile() throws IOException {
+        if (secretFile.isBlank() || !Files.isReadable(Path.of(secretFile))) {
+            return;
+        }
+        String secret = Files.readString(Path.of(secretFile), StandardCharsets.UTF_8).trim();
+        if (!secret.isEmpty()) {
+            rotate(secret);
+        }
+    }
+
+    private Key locateKey(Header header) {
+        SigningKey current = currentKey;
+        String keyId = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        // Tokens issued before key ids were added are verified with the current key
+        if (keyId == null || keyId.equals(current.id())) {
+            return current.key();
+        }
+        SigningKey previous = previousKey;
+        if (previous != null && keyId.equals(previous.id())) {
+            return previous.key();
+        }
+        throw new JwtException("Unknown signing key " + keyId);
+    }
+
+    private static SigningKey createKey(String secret) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        SecretKey key = Keys.hmacShaKeyFor(secretBytes);
+        // Same choice signWith(key) makes, resolved once instead of per token
+        int bits = secretBytes.length * Byte.SIZE;
+        MacAlgorithm algorithm = bits >= 512 ? Jwts.SIG.HS512 : bits >= 384 ? Jwts.SIG.HS384 : Jwts.SIG.HS256;
+        return new SigningKey(keyId(secretBytes), key, algorithm);
+    }
+
+    private static String keyId(byte[] secretBytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secretBytes);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package com.app.prueba.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.CollectionVersion;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.Cards;
 import com.app.prueba.models.User;
 import com.app.prueba.models.UserCards;
+import com.app.prueba.persistence.ReplicaRead;
 import com.app.prueba.repositories.CardRepository;
 import com.app.prueba.repositories.UserCardsRepository;
 import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.security.CredentialCache;
+import com.app.prueba.security.PasswordHasher;
+import com.app.prueba.security.UserIdentifierFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 @Service
 public class UserService {
@@ -26,11 +47,68 @@ public class UserService {
     @Autowired
     private UserCardsRepository userCardsRepository;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private UserIdentifierFilter userIdentifierFilter;
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    public static final Set<String> CARD_FIELDS = Set.of("id", "name", "description");
+
+    private static final Set<String> ID_FIELD = Set.of("id");
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<UserView> getAllUsers() {
+        return userRepository.findAllViews();
     }
 
-    public User getUserById(Integer id) {
+    /**
+     * Writes every user as newline-delimited JSON. Rows are read through a cursor
+     * as read models, so nothing piles up in the persistence context and memory
+     * stays flat whatever the table size.
+     */
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserView.class);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (Stream<UserView> users = userRepository.streamAllViews()) {
+            Iterator<UserView> iterator = users.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+    }
+
+    // Cached as the immutable read model, so callers never share an entity
+    @Cacheable(cacheNames = "users", key = "#id", condition = "#id != null && #id > 0", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public UserView getUserById(Integer id) {
         if (!(id instanceof Integer)) {
             return null;
         } else if (id < 0) {
@@ -39,32 +117,87 @@ public class UserService {
             return null;
         }
 
-        if (userRepository.existsById(id)) {
-            return userRepository.findById(id).get();
+        return userRepository.findViewById(id).orElse(null);
+    }
 
-        }
-        return null;
+    /**
+     * A copy of the user loaded for this caller only, to change and pass to
+     * {@link #updateUser(User)}. Null if it does not exist.
+     */
+    public User findUserForUpdate(int id) {
+        return userRepository.findById(id).orElse(null);
     }
 
     public Map<String, Object> createUser(User user) {
+        hashPassword(user);
         userRepository.save(user);
+        userIdentifierFilter.add(user.getUsername(), user.getEmail());
 
         Map<String, Object> response = new HashMap<>();
-        response.put("user", user);
+        response.put("user", UserView.from(user));
 
         return response;
     }
 
+    @CacheEvict(cacheNames = "users", key = "#user.id")
     public User updateUser(User user) {
-        return userRepository.save(user);
+        hashPassword(user);
+        User saved = userRepository.save(user);
+        userIdentifierFilter.add(saved.getUsername(), saved.getEmail());
+        credentialCache.invalidateUser(saved.getId());
+        return saved;
     }
 
+    @CacheEvict(cacheNames = { "users", "userCardVersions" }, key = "#id")
     public void deleteUser(int id) {
         userRepository.deleteById(id);
+        credentialCache.invalidateUser(id);
     }
 
-    public List<Cards> findCardsByUserId(int userId) {
-        return cardRepository.findCardsByUserId(userId);
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<CardView> findCardsByUserId(int userId) {
+        return cardRepository.findCardViewsByUserId(userId);
+    }
+
+    /**
+     * A page of the cards of a user in id order, from the card after the given
+     * cursor. fields, when not null, keeps only those of id, name and
+     * description; asking for the ids alone reads only the user_cards index.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCardsPage(int userId, Integer after, int limit, Set<String> fields) {
+        int cursor = after == null ? 0 : after;
+        // Fetch one extra row to know whether there is a next page without a COUNT
+        List<CardView> cards = ID_FIELD.equals(fields)
+                ? cardRepository.findCardIdsByUserIdAfter(userId, cursor, Limit.of(limit + 1)).stream()
+                        .map(id -> new CardView(id, null, null)).toList()
+                : cardRepository.findCardViewsByUserIdAfter(userId, cursor, Limit.of(limit + 1));
+
+        Integer nextCursor = null;
+        if (cards.size() > limit) {
+            cards = cards.subList(0, limit);
+            nextCursor = cards.get(limit - 1).id();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("cards", fields == null ? cards : cards.stream().map(card -> project(card, fields)).toList());
+        response.put("limit", limit);
+        response.put("nextCursor", nextCursor);
+
+        return response;
+    }
+
+    /**
+     * Count and digest of the card ids and versions of a user, for the
+     * collection ETag and total. Cached until cards are added to the user, or
+     * any card is updated or deleted, and for a few seconds at most (changes
+     * made on other instances are not evicted here).
+     */
+    @Cacheable(cacheNames = "userCardVersions", key = "#userId")
+    @Transactional(readOnly = true)
+    public CollectionVersion getCardsVersion(int userId) {
+        return CollectionVersion.of(cardRepository.findCardVersionsByUserId(userId));
     }
 
     public User getUserByEmail(String email) {
@@ -72,18 +205,69 @@ public class UserService {
     }
 
     public User findUserByEmailAndPassword(String email, String password) {
-        return userRepository.findUserByEmailAndPassword(email, password);
+        User user = userRepository.findUserByEmail(email);
+        if (user == null || !passwordHasher.matches(password, user.getPassword())) {
+            return null;
+        }
+        return user;
     }
 
+    /**
+     * Adds a new card to the user. A card with the same name and description
+     * already stored is linked instead, once however often this is repeated,
+     * so a retried request returns the link the first one made.
+     *
+     * @throws DuplicateKeyException if a different card has the name, without
+     *                               going to the database
+     */
+    @CacheEvict(cacheNames = "userCardVersions", key = "#userId")
     public UserCards addCardToUser(int userId, Cards card) {
         User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("Invalid user ID"));
 
-        Cards saveCard = cardRepository.save(card);
+        Cards existing = cardNameIndex.existingCard(card.getName(), card.getDescription());
+        if (existing != null) {
+            userCardsRepository.insertIfAbsent(userId, existing.getId());
+            return userCardsRepository.findByUserIdAndCardId(userId, existing.getId()).orElseThrow();
+        }
+
+        cardNameIndex.reserveOrThrow(card.getName());
+        Cards saveCard;
+        try {
+            saveCard = cardRepository.save(card);
+        } catch (RuntimeException e) {
+            cardNameIndex.release(card.getName());
+            throw e;
+        }
+        cardNameIndex.added(saveCard);
 
+        // A new card cannot be linked yet, so the link is a plain (batchable) insert
         UserCards userCards = new UserCards();
         userCards.setUser(user);
         userCards.setCard(saveCard);
 
-        return userCardsRepository.save(userCards);
+        UserCards saved = userCardsRepository.save(userCards);
+        cardSearchIndex.index(saveCard);
+        return saved;
+    }
+
+    private static Map<String, Object> project(CardView card, Set<String> fields) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        if (fields.contains("id")) {
+            projected.put("id", card.id());
+        }
+        if (fields.contains("name")) {
+            projected.put("name", card.name());
+        }
+        if (fields.contains("description")) {
+            projected.put("description", card.description());
+        }
+        return projected;
+    }
+
+    private void hashPassword(User user) {
+        // Whatever a client sets is hashed, even when it looks like a hash; the stored hash is left alone
+        if (user.isPasswordChanged()) {
+            user.setPasswordHash(passwordHasher.hash(user.getPassword()));
+        }
     }
 }
@@ -0,0 +1,47 @@
+package com.app.prueba.validations;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Bean validation with the application's shared Validator, built once by
+ * Spring instead of bootstrapping a ValidatorFactory per call. The constraint
+ * metadata of the validated entities is resolved at startup, so the first
+ * request does not pay for it either.
+ *
+ * Violations come back as field to message, the body the controllers already
+ * answer a 400 with.
+ */
+@Component
+public class EntityValidator {
+
+    private static final List<Class<?>> VALIDATED_TYPES = List.of(Cards.class, User.class);
+
+    private final Validator validator;
+
+    public EntityValidator(Validator validator) {
+        this.validator = validator;
+        // Hibernate Validator builds and caches the metadata of a type on first use
+        VALIDATED_TYPES.forEach(validator::getConstraintsForClass);
+    }
+
+    /**
+     * @return the violations by field, empty when the object is valid
+     */
+    public <T> Map<String, String> validate(T object) {
+        Map<String, String> violations = new LinkedHashMap<>();
+        for (ConstraintViolation<T> violation : validator.validate(object)) {
+            violations.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,67 @@
+package com.app.prueba.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BoundedExecutorsTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    @DisplayName("Test - Tasks beyond concurrency plus queue capacity are rejected")
+    public void testRejectsBeyondCapacity(boolean virtualThreads) throws InterruptedException {
+        ExecutorService executor = BoundedExecutors.create("test", 2, 1, virtualThreads);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(3);
+        Runnable task = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            done.countDown();
+        };
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                executor.execute(task);
+            }
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(task));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    @DisplayName("Test - Tasks run on virtual threads only when enabled")
+    public void testThreadKind(boolean virtualThreads) throws Exception {
+        ExecutorService executor = BoundedExecutors.create("test", 1, 1, virtualThreads);
+        try {
+            Future<Boolean> isVirtual = executor.submit(() -> Thread.currentThread().isVirtual());
+            assertEquals(virtualThreads, isVirtual.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.app.prueba.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.utils.Utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureObservability(tracing = false)
+public class MetricsConfigTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PrometheusMeterRegistry prometheusMeterRegistry;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private Utils utils;
+
+    private Timer repositoryTimer(String method) {
+        return meterRegistry.get("spring.data.repository.invocations").tag("method", method).timer();
+    }
+
+    @Test
+    @DisplayName("Test - Native repository queries are tagged and timed")
+    public void testNativeQueryTimer() {
+        cardRepository.findCardsByUserId(1);
+
+        Timer timer = repositoryTimer("findCardsByUserId");
+        assertEquals("native", timer.getId().getTag("query"));
+        assertEquals("CardRepository", timer.getId().getTag("repository"));
+        assertTrue(timer.count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Test - Prometheus scrape has percentile histogram buckets")
+    public void testPrometheusHistogram() {
+        cardRepository.findCardsByUserId(1);
+
+        String scrape = prometheusMeterRegistry.scrape();
+        assertTrue(scrape.lines()
+                .anyMatch(line -> line.startsWith("spring_data_repository_invocations_seconds_bucket")
+                        && line.contains("method=\"findCardsByUserId\"") && line.contains("query=\"native\"")));
+    }
+
+    @Test
+    @DisplayName("Test - JPQL and derived repository queries are tagged")
+    public void testQueryKindTags() {
+        userRepository.findCredentialsByUsername("nobody");
+        userCardsRepository.findByUserIdAndCardId(1, 1);
+
+        assertEquals("jpql", repositoryTimer("findCredentialsByUsername").getId().getTag("query"));
+        assertEquals("derived", repositoryTimer("findByUserIdAndCardId").getId().getTag("query"));
+    }
+
+    @Test
+    @DisplayName("Test - CRUD and custom fragment repository methods are tagged")
+    public void testCrudAndCustomTags() {
+        cardRepository.findById(1);
+        Cards card = cardRepository.save(utils.createCard("Metrics Card", "Metrics"));
+        cardRepository.deleteById(card.getId());
+        // No such user or card: the insert fails, the invocation is timed all the same
+        assertThrows(DataIntegrityViolationException.class, () -> userCardsRepository.insertIfAbsent(-1, -1));
+
+        assertEquals("crud", repositoryTimer("findById").getId().getTag("query"));
+        assertEquals("crud", repositoryTimer("save").getId().getTag("query"));
+        assertEquals("crud", repositoryTimer("deleteById").getId().getTag("query"));
+        assertEquals("custom", meterRegistry.get("spring.data.repository.invocations")
+                .tag("method", "insertIfAbsent").tag("state", "ERROR").timer().getId().getTag("query"));
+    }
+}
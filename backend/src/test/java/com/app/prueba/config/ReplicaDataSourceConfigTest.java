@@ -0,0 +1,178 @@
+package com.app.prueba.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.persistence.ReplicaLagMonitor;
+import com.app.prueba.persistence.ReplicaRoutingDataSource;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.services.CardNameIndex;
+import com.app.prueba.services.CardService;
+import com.app.prueba.utils.Utils;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.lag-query=SELECT lag_ms FROM replica_lag",
+        "spring.datasource.replica.lag-check-interval-ms=3600000",
+        "spring.datasource.replica.max-lag-ms=1000" })
+@ActiveProfiles("test")
+public class ReplicaDataSourceConfigTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private Utils utils;
+
+    @Value("${spring.datasource.replica.url}")
+    private String replicaUrl;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        // Written outside the read-only replica pool, standing in for replication
+        replica = new JdbcTemplate(new DriverManagerDataSource(replicaUrl, "sa", "password"));
+
+        List<String> schema = primary.queryForList("SCRIPT NODATA", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        schema.forEach(replica::execute);
+        replica.execute("CREATE TABLE replica_lag (lag_ms BIGINT)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("INSERT INTO cards (id, name, description) VALUES (9001, 'Replica Card', 'Only on the replica')");
+
+        replicaLagMonitor.checkLag();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primary.update("DELETE FROM cards");
+        // Deleted behind the services' back
+        cardNameIndex.warm();
+    }
+
+    private List<String> pageNames() {
+        @SuppressWarnings("unchecked")
+        List<CardView> cards = (List<CardView>) cardService.getCardsPage(null, 50).get("cards");
+        return cards.stream().map(CardView::name).toList();
+    }
+
+    @Test
+    @DisplayName("Test - Read-only transactions run on the replica")
+    public void testReadsGoToReplica() {
+        assertTrue(replicaRoutingDataSource.isReplicaAvailable());
+        assertEquals(List.of("Replica Card"), pageNames());
+    }
+
+    @Test
+    @DisplayName("Test - Reads behind the caches and before writes stay on the primary")
+    public void testUnmarkedReadsGoToPrimary() {
+        Cards card = utils.createCard("Primary Card", "Written to the primary");
+        cardService.createCard(card);
+
+        assertEquals("Primary Card", cardService.getCardById(card.getId()).name());
+        assertNotNull(cardService.getCardPayload(card.getId()));
+        assertNull(cardService.getCardById(9001));
+        assertTrue(cardRepository.findById(card.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Test - Marked repository queries run on the replica")
+    public void testMarkedRepositoryReadsGoToReplica() {
+        cardService.createCard(utils.createCard("Primary Card", "Written to the primary"));
+
+        List<Cards> exported = cardRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(0,
+                Integer.MAX_VALUE, Limit.of(10));
+
+        assertEquals(List.of("Replica Card"), exported.stream().map(Cards::getName).toList());
+    }
+
+    @Test
+    @DisplayName("Test - Writes run on the primary")
+    public void testWritesGoToPrimary() {
+        Cards card = utils.createCard("Primary Card", "Written to the primary");
+        cardService.createCard(card);
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM cards WHERE name = 'Primary Card'", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM cards WHERE name = 'Primary Card'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Test - A lagging replica is left out and reads fall back to the primary")
+    public void testLaggingReplicaFallsBackToPrimary() {
+        cardService.createCard(utils.createCard("Primary Card", "Written to the primary"));
+        replica.update("UPDATE replica_lag SET lag_ms = 5000");
+        replicaLagMonitor.checkLag();
+
+        assertFalse(replicaRoutingDataSource.isReplicaAvailable());
+        assertEquals(5000L, replicaLagMonitor.getLastLagMs());
+        assertEquals(List.of("Primary Card"), pageNames());
+
+        replica.update("UPDATE replica_lag SET lag_ms = 10");
+        replicaLagMonitor.checkLag();
+        assertEquals(List.of("Replica Card"), pageNames());
+    }
+
+    @Test
+    @DisplayName("Test - An unreachable replica falls back to the primary")
+    public void testFailingLagCheckFallsBackToPrimary() {
+        replica.execute("DROP TABLE replica_lag");
+        replicaLagMonitor.checkLag();
+
+        assertFalse(replicaRoutingDataSource.isReplicaAvailable());
+        assertNull(replicaLagMonitor.getLastLagMs());
+        assertEquals(List.of(), pageNames());
+    }
+
+    @Test
+    @DisplayName("Test - Connections are released after each transaction")
+    public void testConnectionReleasedAfterTransaction() {
+        Map<String, Object> properties = entityManagerFactory.getProperties();
+        assertEquals("DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION",
+                String.valueOf(properties.get("hibernate.connection.handling_mode")));
+    }
+}
@@ -3,6 +3,7 @@ package com.app.prueba.controllers;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -15,8 +16,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -24,18 +27,37 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.app.prueba.models.User;
+import com.app.prueba.security.LoginRateLimiter;
+import com.app.prueba.security.VerifiedTokenCache;
 import com.app.prueba.services.AuthService;
+import com.app.prueba.services.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.ExpiredJwtException;
+
 @WebMvcTest(AuthController.class)
+@Import(LoginRateLimiter.class)
 public class AuthControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    // Runs the security filter chain, unlike the standalone mockMvc
+    @Autowired
+    private MockMvc securedMockMvc;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private VerifiedTokenCache verifiedTokenCache;
+
     @MockitoBean
     private AuthService authService;
 
+    @Spy
+    private LoginRateLimiter loginRateLimiter = new LoginRateLimiter(60000, 3, 2, 1024);
+
     @InjectMocks
     private AuthController authController;
 
@@ -118,6 +140,19 @@ public class AuthControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testLoginWithExpiredToken() throws Exception {
+        when(jwtService.parseClaims("expired.token")).thenThrow(new ExpiredJwtException(null, null, "JWT expired"));
+        when(authService.login(any(User.class))).thenReturn(new HashMap<>(Map.of("token", "new.token")));
+
+        securedMockMvc.perform(post("/api/auth/login")
+                .header("Authorization", "Bearer expired.token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(testUser)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new.token"));
+    }
+
     @Test
     public void testLoginInvalidPassword() throws Exception {
         Map<String, Object> response = new HashMap<>();
@@ -149,4 +184,38 @@ public class AuthControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message").value("Username or email not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoginTooManyFailures() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", AuthService.TOO_MANY_ATTEMPTS);
+
+        when(authService.login(any(User.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(testUser)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value("Too many login attempts, try again later"));
+    }
+
+    @Test
+    public void testLoginTooManyAttemptsFromAddress() throws Exception {
+        when(authService.login(any(User.class))).thenReturn(new HashMap<>());
+
+        for (int i = 0; i < 3; i++) {
+            testUser.setUsername("testuser" + i);
+            mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(new ObjectMapper().writeValueAsString(testUser)))
+                    .andExpect(status().isOk());
+        }
+
+        testUser.setUsername("testuser3");
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(testUser)))
+                .andExpect(status().isTooManyRequests());
+    }
+}
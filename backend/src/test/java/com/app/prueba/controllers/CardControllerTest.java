@@ -1,21 +1,34 @@
 package com.app.prueba.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,37 +36,77 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.app.prueba.dto.CardPayload;
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.Cards;
 import com.app.prueba.models.User;
+import com.app.prueba.security.VerifiedTokenCache;
+import com.app.prueba.services.CardExportService;
+import com.app.prueba.services.CardImportService;
 import com.app.prueba.services.CardService;
+import com.app.prueba.services.ExportJob;
+import com.app.prueba.services.JwtService;
 import com.app.prueba.services.UserService;
 import com.app.prueba.utils.Utils;
+import com.app.prueba.validations.EntityValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.validation.Validation;
+
 @WebMvcTest(CardController.class)
+@Import({ EntityValidator.class, IdempotencyKeys.class })
 public class CardControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private VerifiedTokenCache verifiedTokenCache;
+
     @MockitoBean
     private Utils utils;
 
     @MockitoBean
     private CardService cardService;
 
+    @MockitoBean
+    private CardImportService cardImportService;
+
+    @MockitoBean
+    private CardExportService cardExportService;
+
     @MockitoBean
     private UserService userService;
 
+    // Real instances, shared like the application beans
+    @Spy
+    private EntityValidator entityValidator = new EntityValidator(
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private IdempotencyKeys idempotencyKeys = new IdempotencyKeys(60000, 100);
+
     @InjectMocks
     private CardController cardController;
 
@@ -75,17 +128,64 @@ public class CardControllerTest {
 
     @Test
     public void testGetAllCardsEmptyList() throws Exception {
-        when(cardService.getAllCards()).thenReturn(Collections.emptyList());
+        Map<String, Object> page = new HashMap<>();
+        page.put("cards", Collections.emptyList());
+        when(cardService.getCardsPage(null, 50)).thenReturn(page);
 
         mockMvc.perform(get("/api/cards")).andExpect(status().isNotFound());
     }
 
     @Test
     public void testGetAllCardsOk() throws Exception {
-        when(cardService.createCard(any(Cards.class))).thenReturn(new HashMap<>());
-        when(cardService.getAllCards()).thenReturn(Collections.singletonList(testCard));
+        Map<String, Object> page = new HashMap<>();
+        page.put("cards", Collections.singletonList(CardView.from(testCard)));
+        page.put("nextCursor", testCard.getId());
+        when(cardService.getCardsPage(null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/cards?limit=1")).andExpect(status().isOk())
+                .andExpect(jsonPath("cards[0].name").value(testCard.getName()))
+                .andExpect(jsonPath("nextCursor").value(testCard.getId()));
+    }
+
+    @Test
+    public void testGetAllCardsInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/cards?limit=0")).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("limit must be between 1 and 500"));
+        mockMvc.perform(get("/api/cards?limit=501")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetAllCardsInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/cards?after=-1")).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("after must not be negative"));
+    }
+
+    private CardPayload payload(long version, byte[] gzip) throws Exception {
+        byte[] json = new ObjectMapper().writeValueAsBytes(CardView.from(testCard));
+        return new CardPayload(testCard.getId(), version, json, gzip);
+    }
+
+    @Test
+    public void testSearchCards() throws Exception {
+        Map<String, Object> results = new HashMap<>();
+        results.put("cards", Collections.singletonList(CardView.from(testCard)));
+        results.put("total", 1);
+        when(cardService.searchCards("tes", 20, 0)).thenReturn(results);
+
+        mockMvc.perform(get("/api/cards/search?q=tes")).andExpect(status().isOk())
+                .andExpect(jsonPath("cards[0].name").value(testCard.getName()))
+                .andExpect(jsonPath("total").value(1));
+    }
 
-        mockMvc.perform(get("/api/cards")).andExpect(status().isOk());
+    @Test
+    public void testSearchCardsInvalid() throws Exception {
+        when(cardService.searchCards("a", 20, 0)).thenThrow(new IllegalArgumentException("q is too short"));
+
+        mockMvc.perform(get("/api/cards/search?q=a")).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("q is too short"));
+        mockMvc.perform(get("/api/cards/search?q=test&limit=101")).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("limit must be between 1 and 100"));
+        mockMvc.perform(get("/api/cards/search?q=test&offset=-1")).andExpect(status().isBadRequest());
     }
 
     @Test
@@ -96,9 +196,89 @@ public class CardControllerTest {
 
     @Test
     public void testGetCardByIdOk() throws Exception {
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
+        when(cardService.getCardPayload(testCard.getId())).thenReturn(payload(0, null));
 
-        mockMvc.perform(get("/api/cards/" + testCard.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("name").value(testCard.getName()));
+    }
+
+    @Test
+    public void testGetCardByIdGzip() throws Exception {
+        byte[] gzip = { 31, -117, 8, 0 };
+        when(cardService.getCardPayload(testCard.getId())).thenReturn(payload(0, gzip));
+
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("Accept-Encoding", "deflate, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0-gz\""))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(gzip));
+        mockMvc.perform(get("/api/cards/" + testCard.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("name").value(testCard.getName()));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(CardController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CardController.acceptsGzip("br;q=1.0, *;q=0.5"));
+        assertFalse(CardController.acceptsGzip("gzip;q=0"));
+        assertFalse(CardController.acceptsGzip("identity"));
+        assertFalse(CardController.acceptsGzip(null));
+        // An explicit gzip wins over the wildcard, wherever it is listed
+        assertTrue(CardController.acceptsGzip("*;q=0, gzip"));
+        assertFalse(CardController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(CardController.acceptsGzip("gzip ; q = 0"));
+        assertFalse(CardController.acceptsGzip("gzip;level=1;q=0.000"));
+        assertTrue(CardController.acceptsGzip("gzip;level=1;Q=0.1"));
+        assertFalse(CardController.acceptsGzip("*;q=0"));
+        assertFalse(CardController.acceptsGzip("gzip;q=abc"));
+    }
+
+    @Test
+    public void testGetCardByIdNotModified() throws Exception {
+        when(cardService.getCardVersion(testCard.getId())).thenReturn(3L);
+
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"));
+        verify(cardService, never()).getCardPayload(anyInt());
+    }
+
+    @Test
+    public void testGetCardByIdGzipNotModified() throws Exception {
+        byte[] gzip = { 31, -117, 8, 0 };
+        when(cardService.getCardVersion(testCard.getId())).thenReturn(3L);
+        when(cardService.getCardPayload(testCard.getId())).thenReturn(payload(3, gzip));
+
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("If-None-Match", "\"1-3-gz\"")
+                .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3-gz\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"));
+        // The gzip ETag does not validate the identity body
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("If-None-Match", "\"1-3-gz\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("name").value(testCard.getName()));
+    }
+
+    @Test
+    public void testGetCardByIdModifiedSinceETag() throws Exception {
+        when(cardService.getCardVersion(testCard.getId())).thenReturn(4L);
+        when(cardService.getCardPayload(testCard.getId())).thenReturn(payload(4, null));
+
+        mockMvc.perform(get("/api/cards/" + testCard.getId()).header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4\""))
+                .andExpect(jsonPath("name").value(testCard.getName()));
     }
 
     @Test
@@ -111,6 +291,17 @@ public class CardControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    public void testCreateCardDuplicateName() throws Exception {
+        when(cardService.createCard(any(Cards.class))).thenThrow(new DuplicateKeyException("Card name already exists"));
+
+        mockMvc.perform(post("/api/cards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(testCard)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("message").value("Card name already exists"));
+    }
+
     @ParameterizedTest
     @CsvFileSource(resources = "/invalid_cards.csv", numLinesToSkip = 1)
     public void testCreateCardInvalid(String name, String expectedField, String expectedMessage) throws Exception {
@@ -139,7 +330,7 @@ public class CardControllerTest {
 
     @Test
     public void testUpdateCardOk() throws Exception {
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
+        when(cardService.findCardForUpdate(testCard.getId())).thenReturn(testCard);
         when(cardService.updateCard(testCard)).thenReturn(testCard);
 
         mockMvc.perform(put("/api/cards/" + testCard.getId())
@@ -148,11 +339,23 @@ public class CardControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testUpdateCardConcurrentModification() throws Exception {
+        when(cardService.findCardForUpdate(testCard.getId())).thenReturn(testCard);
+        when(cardService.updateCard(testCard)).thenThrow(new ObjectOptimisticLockingFailureException(Cards.class, 1));
+
+        mockMvc.perform(put("/api/cards/" + testCard.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(testCard)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("message").value("Card was modified by another request"));
+    }
+
     @ParameterizedTest
     @CsvFileSource(resources = "/invalid_cards.csv", numLinesToSkip = 1)
     public void testUpdateCardInvalid(String name, String expectedField, String expectedMessage) throws Exception {
 
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
+        when(cardService.findCardForUpdate(testCard.getId())).thenReturn(testCard);
         when(cardService.updateCard(testCard)).thenReturn(testCard);
 
         Cards invalidCard = new Cards();
@@ -174,7 +377,7 @@ public class CardControllerTest {
 
     @Test
     public void testDeleteUserOk() throws Exception {
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
+        when(cardService.getCardById(testCard.getId())).thenReturn(CardView.from(testCard));
         doNothing().when(cardService).deleteCard(testCard.getId());
 
         mockMvc.perform(delete("/api/cards/" + testCard.getId())).andExpect(status().isNoContent());
@@ -187,19 +390,21 @@ public class CardControllerTest {
     }
 
     @Test
-    public void testExportCardBadFile() throws Exception {
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
-        when(cardService.exportCardToJSON(testCard.getId())).thenThrow(new IOException());
+    public void testExportCardBusy() throws Exception {
+        when(cardService.getCardById(testCard.getId())).thenReturn(CardView.from(testCard));
+        when(cardService.exportCardToJSON(CardView.from(testCard))).thenReturn(new HashMap<>());
+        doThrow(new RejectedExecutionException()).when(cardExportService)
+                .exportCard(eq(CardView.from(testCard)), anyMap());
 
         mockMvc.perform(post("/api/cards/export/" + testCard.getId()))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("message").value("Error creating file"));
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("message").value("Server busy, try again later"));
     }
 
     @Test
     public void testExportCardOk() throws Exception {
-        when(cardService.getCardById(testCard.getId())).thenReturn(testCard);
-        when(cardService.exportCardToJSON(testCard.getId())).thenReturn(new HashMap<>());
+        when(cardService.getCardById(testCard.getId())).thenReturn(CardView.from(testCard));
+        when(cardService.exportCardToJSON(CardView.from(testCard))).thenReturn(new HashMap<>());
 
         mockMvc.perform(post("/api/cards/export/" + testCard.getId()))
                 .andExpect(status().isOk())
@@ -208,6 +413,99 @@ public class CardControllerTest {
                 .andExpect(jsonPath("data").exists());
     }
 
+    @Test
+    public void testCreateExportJobInvalidFormat() throws Exception {
+        mockMvc.perform(post("/api/cards/export?format=csv"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("format must be ndjson or zip"));
+    }
+
+    @Test
+    public void testCreateExportJobInvalidRange() throws Exception {
+        mockMvc.perform(post("/api/cards/export?fromId=10&toId=5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("fromId must not be greater than toId"));
+    }
+
+    @Test
+    public void testCreateExportJobInvalidUserId() throws Exception {
+        when(cardExportService.createJob(CardExportService.Format.ZIP, null, null, 99))
+                .thenThrow(new IllegalArgumentException());
+
+        mockMvc.perform(post("/api/cards/export?format=zip&userId=99"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("Invalid userId"));
+    }
+
+    @Test
+    public void testCreateExportJobBusy() throws Exception {
+        when(cardExportService.createJob(CardExportService.Format.NDJSON, 1, 100, null))
+                .thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/cards/export?fromId=1&toId=100"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("message").value("Server busy, try again later"));
+    }
+
+    @Test
+    public void testCreateExportJobOk() throws Exception {
+        ExportJob job = mock(ExportJob.class);
+        when(job.getId()).thenReturn("job-1");
+        when(job.toMap()).thenReturn(Map.of("id", "job-1", "status", ExportJob.Status.PENDING));
+        when(cardExportService.createJob(CardExportService.Format.ZIP, 1, 100, null)).thenReturn(job);
+
+        mockMvc.perform(post("/api/cards/export?format=zip&fromId=1&toId=100"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/cards/export/jobs/job-1"))
+                .andExpect(jsonPath("id").value("job-1"))
+                .andExpect(jsonPath("status").value("PENDING"));
+    }
+
+    @Test
+    public void testGetExportJobNotFound() throws Exception {
+        mockMvc.perform(get("/api/cards/export/jobs/unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("message").value("Export job not found"));
+    }
+
+    @Test
+    public void testDownloadExportNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/cards/export/jobs/unknown/file"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("message").value("Export job not found"));
+    }
+
+    @Test
+    public void testDownloadExportNotCompleted() throws Exception {
+        ExportJob job = mock(ExportJob.class);
+        when(job.getStatus()).thenReturn(ExportJob.Status.RUNNING);
+        when(cardExportService.getJob("job-1")).thenReturn(job);
+
+        MvcResult result = mockMvc.perform(get("/api/cards/export/jobs/job-1/file"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("message").value("Export job is RUNNING"));
+    }
+
+    @Test
+    public void testDownloadExportOk() throws Exception {
+        ExportJob job = mock(ExportJob.class);
+        when(job.getStatus()).thenReturn(ExportJob.Status.COMPLETED);
+        when(job.getFormat()).thenReturn(CardExportService.Format.ZIP);
+        when(job.getFileName()).thenReturn("cards-job-1.zip");
+        when(cardExportService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/cards/export/jobs/job-1/file"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards-job-1.zip\""));
+    }
+
     @Test
     public void testImportCardNoUserProvided() throws Exception {
         mockMvc.perform(post("/api/cards/import")).andExpect(status().isBadRequest())
@@ -230,12 +528,31 @@ public class CardControllerTest {
                 .andExpect(jsonPath("message").value("Invalid userId"));
     }
 
+    @Test
+    public void testImportCardIdempotencyKey() throws Exception {
+        MockMultipartFile validFile = new MockMultipartFile("file", "valid.json", "application/json",
+                "{\"name\":\"Test\",\"description\":\"Test Description\"}".getBytes());
+        Map<String, Object> response = new HashMap<>();
+        response.put("card", CardView.from(testCard));
+        when(cardService.importCardFromJSON(anyMap(), anyInt())).thenReturn(response);
+
+        mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=1").file(validFile)
+                .header(IdempotencyKeys.HEADER, "import-1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=1").file(validFile)
+                .header(IdempotencyKeys.HEADER, "import-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("card.name").value("Test"));
+        verify(cardService, times(1)).importCardFromJSON(anyMap(), anyInt());
+    }
+
     @Test
     public void testImportCardNoFileProvided() throws Exception {
         User testUser = new User();
 
         when(userService.createUser(any(User.class))).thenReturn(new HashMap<>());
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         mockMvc.perform(post("/api/cards/import?userId=" + testUser.getId())).andExpect(status().isBadRequest())
                 .andExpect(jsonPath("message").value("No file uploaded"));
@@ -248,7 +565,7 @@ public class CardControllerTest {
         MockMultipartFile invalidFile = new MockMultipartFile("file", "invalid.txt", "text/plain",
                 "invalid content".getBytes());
 
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=" + testUser.getId())
                 .file(invalidFile))
@@ -263,7 +580,7 @@ public class CardControllerTest {
         MockMultipartFile invalidFile = new MockMultipartFile("file", "empty.json", "application/json",
                 "".getBytes());
 
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=" + testUser.getId())
                 .file(invalidFile))
@@ -279,12 +596,13 @@ public class CardControllerTest {
         MockMultipartFile invalidFile = new MockMultipartFile("file", "invalid.json", "application/json",
                 ("{\"name\":\"" + name + "\",\"description\":\"Test Description\"}").getBytes());
 
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=" + testUser.getId())
                 .file(invalidFile))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath(expectedField).value(expectedMessage));
+        verify(entityValidator).validate(any(Cards.class));
     }
 
     @Test
@@ -294,7 +612,7 @@ public class CardControllerTest {
         MockMultipartFile validFile = new MockMultipartFile("file", "valid.json", "application/json",
                 "{\"name\":\"Test\",\"description\":\"Test Description\"}".getBytes());
 
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
         when(cardService.createCard(any(Cards.class))).thenReturn(new HashMap<>());
 
         mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import?userId=" + testUser.getId())
@@ -302,4 +620,40 @@ public class CardControllerTest {
                 .andExpect(status().isOk());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testImportCardsBulkInvalidFile() throws Exception {
+        MockMultipartFile invalidFile = new MockMultipartFile("file", "cards.csv", "text/csv",
+                "name,description".getBytes());
+
+        mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import/bulk?userId=1").file(invalidFile))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("Invalid file format"));
+    }
+
+    @Test
+    public void testImportCardsBulkInvalidUserId() throws Exception {
+        MockMultipartFile validFile = new MockMultipartFile("file", "cards.ndjson", "application/x-ndjson",
+                "{\"name\":\"Test\"}".getBytes());
+
+        when(cardImportService.importCards(any(), anyInt())).thenThrow(new IllegalArgumentException());
+
+        mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import/bulk?userId=1").file(validFile))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("Invalid userId"));
+    }
+
+    @Test
+    public void testImportCardsBulkOk() throws Exception {
+        MockMultipartFile validFile = new MockMultipartFile("file", "cards.ndjson", "application/x-ndjson",
+                "{\"name\":\"Test\"}".getBytes());
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("imported", 1);
+        report.put("failed", 0);
+        when(cardImportService.importCards(any(), anyInt())).thenReturn(report);
+
+        mockMvc.perform(multipart(HttpMethod.POST, "/api/cards/import/bulk?userId=1").file(validFile))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1));
+    }
+}
@@ -0,0 +1,125 @@
+package com.app.prueba.controllers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+public class IdempotencyKeysTest {
+
+    private static final String SCOPE = "POST /api/users/1/cards";
+
+    private IdempotencyKeys idempotencyKeys;
+
+    private AtomicInteger calls;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyKeys = new IdempotencyKeys(60000, 100);
+        calls = new AtomicInteger();
+    }
+
+    private ResponseEntity<?> created() {
+        return new ResponseEntity<>("card " + calls.incrementAndGet(), HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("Test - Without a key every request runs")
+    public void testNoKey() {
+        idempotencyKeys.execute(null, SCOPE, "card", this::created);
+        idempotencyKeys.execute(null, SCOPE, "card", this::created);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, idempotencyKeys.size());
+    }
+
+    @Test
+    @DisplayName("Test - A retry with the same key gets the first response")
+    public void testReplay() {
+        ResponseEntity<?> first = idempotencyKeys.execute("key-1", SCOPE, "card", this::created);
+        ResponseEntity<?> retried = idempotencyKeys.execute("key-1", SCOPE, "card", this::created);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getBody(), retried.getBody());
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals("true", retried.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("Test - Keys are scoped")
+    public void testScopes() {
+        idempotencyKeys.execute("key-1", SCOPE, "card", this::created);
+        idempotencyKeys.execute("key-1", "POST /api/users/2/cards", "card", this::created);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test - A key reused with a different request is rejected")
+    public void testDifferentRequest() {
+        idempotencyKeys.execute("key-1", SCOPE, List.of("card", "description"), this::created);
+
+        ResponseEntity<?> reused = idempotencyKeys.execute("key-1", SCOPE, List.of("other", "description"),
+                this::created);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test - A retry while the first request runs is rejected")
+    public void testInProgress() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofVirtual().start(() -> idempotencyKeys.execute("key-1", SCOPE, "card", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return created();
+        }));
+        started.await();
+
+        ResponseEntity<?> retried = idempotencyKeys.execute("key-1", SCOPE, "card", this::created);
+        release.countDown();
+        first.join();
+
+        assertEquals(HttpStatus.CONFLICT, retried.getStatusCode());
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.OK, idempotencyKeys.execute("key-1", SCOPE, "card", this::created).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Test - Failed requests are not kept")
+    public void testFailuresNotKept() {
+        assertThrows(IllegalStateException.class, () -> idempotencyKeys.execute("key-1", SCOPE, "card", () -> {
+            throw new IllegalStateException();
+        }));
+        idempotencyKeys.execute("key-2", SCOPE, "card",
+                () -> new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertEquals(0, idempotencyKeys.size());
+        idempotencyKeys.execute("key-1", SCOPE, "card", this::created);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test - Blank and oversized keys are rejected")
+    public void testInvalidKeys() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                idempotencyKeys.execute(" ", SCOPE, "card", this::created).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                idempotencyKeys.execute("k".repeat(256), SCOPE, "card", this::created).getStatusCode());
+        assertEquals(0, calls.get());
+    }
+}
@@ -2,51 +2,92 @@ package com.app.prueba.controllers;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.CollectionVersion;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.Cards;
 import com.app.prueba.models.User;
 import com.app.prueba.models.UserCards;
+import com.app.prueba.security.VerifiedTokenCache;
+import com.app.prueba.services.AssignmentJob;
+import com.app.prueba.services.CardAssignmentService;
+import com.app.prueba.services.JwtService;
 import com.app.prueba.services.UserService;
 import com.app.prueba.utils.Utils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(UserController.class)
+@Import(IdempotencyKeys.class)
 public class UserControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private VerifiedTokenCache verifiedTokenCache;
+
     @MockitoBean
     private Utils utils;
 
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private CardAssignmentService cardAssignmentService;
+
+    @Spy
+    private IdempotencyKeys idempotencyKeys = new IdempotencyKeys(60000, 100);
+
     @InjectMocks
     private UserController userController;
 
@@ -80,9 +121,28 @@ public class UserControllerTest {
     @Test
     public void testGetAllUsersOk() throws Exception {
         when(userService.createUser(any(User.class))).thenReturn(new HashMap<>());
-        when(userService.getAllUsers()).thenReturn(Collections.singletonList(testUser));
+        when(userService.getAllUsers()).thenReturn(Collections.singletonList(UserView.from(testUser)));
+
+        mockMvc.perform(get("/api/users")).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value(testUser.getUsername()))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
 
-        mockMvc.perform(get("/api/users")).andExpect(status().isOk());
+    @Test
+    public void testExportUsersNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write("{\"username\":\"testusernew2\"}\n".getBytes());
+            return null;
+        }).when(userService).exportUsers(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"username\":\"testusernew2\"}\n"));
+        verify(userService, never()).getAllUsers();
     }
 
     @Test
@@ -93,9 +153,11 @@ public class UserControllerTest {
 
     @Test
     public void testGetUserByIdOk() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
-        mockMvc.perform(get("/api/users/" + testUser.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/" + testUser.getId())).andExpect(status().isOk())
+                .andExpect(jsonPath("username").value(testUser.getUsername()))
+                .andExpect(jsonPath("password").doesNotExist());
     }
 
     @Test
@@ -164,7 +226,7 @@ public class UserControllerTest {
 
     @Test
     public void testUpdateUserOk() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.findUserForUpdate(testUser.getId())).thenReturn(testUser);
         when(userService.updateUser(testUser)).thenReturn(testUser);
 
         mockMvc.perform(put("/api/users/" + testUser.getId())
@@ -178,7 +240,7 @@ public class UserControllerTest {
     public void testUpdateUserInvalid(String name, String lastName, String email, String username, String password,
             String phone, String expectedField, String expectedMessage) throws Exception {
 
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.findUserForUpdate(testUser.getId())).thenReturn(testUser);
         when(userService.updateUser(testUser)).thenReturn(testUser);
 
         User invalidUser = new User();
@@ -198,7 +260,7 @@ public class UserControllerTest {
 
     @Test
     public void testUpdateUserUniqueInvalid() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.findUserForUpdate(testUser.getId())).thenReturn(testUser);
         when(userService.updateUser(testUser))
                 .thenThrow(new DataIntegrityViolationException("Detail: Unique constraint violation"));
 
@@ -217,7 +279,7 @@ public class UserControllerTest {
 
     @Test
     public void testDeleteUserOk() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
         doNothing().when(userService).deleteUser(testUser.getId());
 
         mockMvc.perform(delete("/api/users/" + testUser.getId())).andExpect(status().isNoContent());
@@ -225,24 +287,67 @@ public class UserControllerTest {
 
     @Test
     public void testGet0CardsByUserId() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
-        when(userService.findCardsByUserId(testUser.getId())).thenReturn(Collections.emptyList());
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
+        when(userService.getCardsVersion(testUser.getId())).thenReturn(new CollectionVersion(0, "e"));
 
         mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards")).andExpect(status().isNotFound())
                 .andExpect(jsonPath("message").value("No cards found"));
+        verify(userService, never()).getCardsPage(anyInt(), any(), anyInt(), any());
     }
 
     @Test
     public void testGetCardsByUserId() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
-        when(userService.findCardsByUserId(testUser.getId())).thenReturn(Collections.singletonList(new Cards()));
+        Map<String, Object> page = new HashMap<>();
+        page.put("cards", Collections.singletonList(new CardView(1, "Test Card", "Test Description")));
+        page.put("limit", 50);
+        page.put("nextCursor", null);
+        when(userService.getCardsVersion(testUser.getId())).thenReturn(new CollectionVersion(1, "d1"));
+        when(userService.getCardsPage(testUser.getId(), null, 50, null)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards")).andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + testUser.getId() + "-1-d1\""))
+                .andExpect(jsonPath("cards[0].name").value("Test Card"))
+                .andExpect(jsonPath("total").value(1));
+    }
+
+    @Test
+    public void testGetCardsByUserIdPageWithFields() throws Exception {
+        Map<String, Object> page = new HashMap<>();
+        page.put("cards", Collections.singletonList(Map.of("id", 7)));
+        page.put("limit", 1);
+        page.put("nextCursor", 7);
+        when(userService.getCardsVersion(testUser.getId())).thenReturn(new CollectionVersion(3, "d3"));
+        when(userService.getCardsPage(testUser.getId(), 5, 1, Set.of("id"))).thenReturn(page);
+
+        mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards?after=5&limit=1&fields=id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("cards[0].id").value(7))
+                .andExpect(jsonPath("nextCursor").value(7))
+                .andExpect(jsonPath("total").value(3));
+    }
 
-        mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards")).andExpect(status().isOk());
+    @ParameterizedTest
+    @ValueSource(strings = { "after=-1", "limit=0", "limit=501", "fields=id,password" })
+    public void testGetCardsByUserIdInvalidParameters(String query) throws Exception {
+        mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards?" + query))
+                .andExpect(status().isBadRequest());
+        verify(userService, never()).getCardsVersion(anyInt());
+    }
+
+    @Test
+    public void testGetCardsByUserIdNotModified() throws Exception {
+        String eTag = "\"" + testUser.getId() + "-2-d2\"";
+        when(userService.getCardsVersion(testUser.getId())).thenReturn(new CollectionVersion(2, "d2"));
+
+        mockMvc.perform(get("/api/users/" + testUser.getId() + "/cards").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        verify(userService, never()).getCardsPage(anyInt(), any(), anyInt(), any());
     }
 
     @Test
     public void testNotAddCardsToUserCauseInvalidName() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         Cards card = new Cards();
 
@@ -260,20 +365,39 @@ public class UserControllerTest {
 
     @Test
     public void testAddCardsToUser() throws Exception {
-        when(userService.getUserById(testUser.getId())).thenReturn(testUser);
+        when(userService.getUserById(testUser.getId())).thenReturn(UserView.from(testUser));
 
         Cards card = new Cards();
         card.setName("Test Card");
 
         UserCards userCards = new UserCards();
+        userCards.setUser(testUser);
         userCards.setCard(card);
 
-        when(userService.addCardToUser(testUser.getId(), card)).thenReturn(userCards);
+        when(userService.addCardToUser(eq(testUser.getId()), any(Cards.class))).thenReturn(userCards);
 
         mockMvc.perform(post("/api/users/" + testUser.getId() + "/cards")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(new ObjectMapper().writeValueAsString(card)))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("userId").value(testUser.getId()))
+                .andExpect(jsonPath("card.name").value("Test Card"))
+                .andExpect(jsonPath("user").doesNotExist());
+    }
+
+    @Test
+    public void testAddCardsToUserDuplicateName() throws Exception {
+        Cards card = new Cards();
+        card.setName("Test Card");
+
+        when(userService.addCardToUser(eq(testUser.getId()), any(Cards.class)))
+                .thenThrow(new DuplicateKeyException("Card name already exists"));
+
+        mockMvc.perform(post("/api/users/" + testUser.getId() + "/cards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(card)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("message").value("Card name already exists"));
     }
 
     @Test
@@ -289,4 +413,87 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testAddCardsToUserIdempotencyKey() throws Exception {
+        Cards card = new Cards();
+        card.setName("Test Card");
+
+        UserCards userCards = new UserCards();
+        userCards.setUser(testUser);
+        userCards.setCard(card);
+
+        when(userService.addCardToUser(eq(testUser.getId()), any(Cards.class))).thenReturn(userCards);
+
+        mockMvc.perform(post("/api/users/" + testUser.getId() + "/cards")
+                .header(IdempotencyKeys.HEADER, "add-card-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(card)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyKeys.REPLAYED_HEADER));
+        mockMvc.perform(post("/api/users/" + testUser.getId() + "/cards")
+                .header(IdempotencyKeys.HEADER, "add-card-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(card)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("card.name").value("Test Card"));
+
+        card.setName("Other Card");
+        mockMvc.perform(post("/api/users/" + testUser.getId() + "/cards")
+                .header(IdempotencyKeys.HEADER, "add-card-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(card)))
+                .andExpect(status().isUnprocessableEntity());
+        verify(userService, times(1)).addCardToUser(eq(testUser.getId()), any(Cards.class));
+    }
+
+    @Test
+    public void testCreateAssignmentJob() throws Exception {
+        AssignmentJob job = mock(AssignmentJob.class);
+        when(job.getId()).thenReturn("job-1");
+        when(job.toMap()).thenReturn(Map.of("id", "job-1", "status", "PENDING"));
+        when(cardAssignmentService.createJob(List.of(1, 2), List.of(3))).thenReturn(job);
+
+        mockMvc.perform(post("/api/users/cards/assignments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[1,2],\"cardIds\":[3]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/users/cards/assignments/job-1"))
+                .andExpect(jsonPath("id").value("job-1"));
+    }
+
+    @Test
+    public void testCreateAssignmentJobInvalid() throws Exception {
+        when(cardAssignmentService.createJob(any(), any()))
+                .thenThrow(new IllegalArgumentException("Cards not found: [3]"));
+
+        mockMvc.perform(post("/api/users/cards/assignments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[1],\"cardIds\":[3]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message").value("Cards not found: [3]"));
+    }
+
+    @Test
+    public void testCreateAssignmentJobBusy() throws Exception {
+        when(cardAssignmentService.createJob(anyList(), anyList())).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/users/cards/assignments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[1],\"cardIds\":[3]}"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testGetAssignmentJob() throws Exception {
+        AssignmentJob job = mock(AssignmentJob.class);
+        when(job.toMap()).thenReturn(Map.of("id", "job-1", "progress", 50));
+        when(cardAssignmentService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/users/cards/assignments/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("progress").value(50));
+        mockMvc.perform(get("/api/users/cards/assignments/job-2"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,39 @@
+package com.app.prueba.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CollectionVersionTest {
+
+    @Test
+    @DisplayName("Test - Replacing rows by others with the same id and version sums changes the ETag")
+    public void testReplacedRowsChangeETag() {
+        CollectionVersion before = CollectionVersion.of(List.of(new RowVersion(1, 0), new RowVersion(4, 0)));
+        CollectionVersion after = CollectionVersion.of(List.of(new RowVersion(2, 0), new RowVersion(3, 0)));
+
+        assertEquals(2, after.count());
+        assertNotEquals(before.eTag(7), after.eTag(7));
+    }
+
+    @Test
+    @DisplayName("Test - Versions moving between rows change the ETag")
+    public void testSwappedVersionsChangeETag() {
+        CollectionVersion before = CollectionVersion.of(List.of(new RowVersion(1, 2), new RowVersion(2, 1)));
+        CollectionVersion after = CollectionVersion.of(List.of(new RowVersion(1, 1), new RowVersion(2, 2)));
+
+        assertNotEquals(before.digest(), after.digest());
+    }
+
+    @Test
+    @DisplayName("Test - The same rows give the same ETag")
+    public void testSameRowsSameETag() {
+        List<RowVersion> rows = List.of(new RowVersion(1, 0), new RowVersion(4, 3));
+
+        assertEquals(CollectionVersion.of(rows), CollectionVersion.of(List.copyOf(rows)));
+        assertEquals(0, CollectionVersion.of(List.of()).count());
+    }
+}
@@ -0,0 +1,25 @@
+package com.app.prueba.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.app.prueba.models.UserCards;
+
+public class LinkConflictsTest {
+
+    @Test
+    @DisplayName("Test - PostgreSQL skips conflicts on the user card constraint only")
+    public void testPostgreSQLConflictTarget() {
+        assertEquals(UserCards.ON_LINK_CONFLICT, LinkConflicts.onLinkConflict(new PostgreSQLDialect()));
+    }
+
+    @Test
+    @DisplayName("Test - H2 skips conflicts without a target")
+    public void testH2ConflictTarget() {
+        assertEquals(LinkConflicts.ANY_CONFLICT, LinkConflicts.onLinkConflict(new H2Dialect()));
+    }
+}
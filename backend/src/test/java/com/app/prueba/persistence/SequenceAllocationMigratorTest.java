@@ -0,0 +1,46 @@
+package com.app.prueba.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SequenceAllocationMigratorTest {
+
+    @Autowired
+    private SequenceAllocationMigrator sequenceAllocationMigrator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long increment(String sequenceName) {
+        return jdbcTemplate.queryForObject(
+                "SELECT increment FROM information_schema.sequences WHERE LOWER(sequence_name) = ?", Long.class,
+                sequenceName);
+    }
+
+    @Test
+    @DisplayName("Test - Sequences use the configured allocation sizes")
+    public void testConfiguredAllocationSizes() {
+        assertEquals(100, increment("cards_seq"));
+        assertEquals(100, increment("user_cards_seq"));
+        assertEquals(50, increment("users_seq"));
+        assertEquals(50, increment("roles_seq"));
+    }
+
+    @Test
+    @DisplayName("Test - Existing sequence with another increment is migrated")
+    public void testMigrateExistingSequence() {
+        jdbcTemplate.execute("ALTER SEQUENCE cards_seq INCREMENT BY 1");
+
+        sequenceAllocationMigrator.afterSingletonsInstantiated();
+
+        assertEquals(100, increment("cards_seq"));
+    }
+}
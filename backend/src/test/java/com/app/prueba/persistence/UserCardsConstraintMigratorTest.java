@@ -0,0 +1,77 @@
+package com.app.prueba.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.app.prueba.models.UserCards;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.services.CardNameIndex;
+import com.app.prueba.utils.Utils;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class UserCardsConstraintMigratorTest {
+
+    @Autowired
+    private UserCardsConstraintMigrator userCardsConstraintMigrator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private Utils utils;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_cards");
+        userRepository.deleteAll();
+        cardRepository.deleteAll();
+        cardNameIndex.warm();
+    }
+
+    @Test
+    @DisplayName("Test - Schema has the unique user card constraint")
+    public void testConstraintCreated() {
+        assertTrue(userCardsConstraintMigrator.constraintExists());
+    }
+
+    @Test
+    @DisplayName("Test - Duplicated user cards are deleted before adding the constraint")
+    public void testMigrateDuplicatedUserCards() {
+        User user = userRepository.save(utils.createUser("Migrated", "User", "migrateduser@gmail.com",
+                "migrateduser", "password", utils.generateRandomPhoneNumber()));
+        Cards card = cardRepository.save(utils.createCard("Migrated Card", "Migrated"));
+        jdbcTemplate.execute("ALTER TABLE user_cards DROP CONSTRAINT " + UserCards.USER_CARD_CONSTRAINT);
+        for (int id = 1000001; id <= 1000003; id++) {
+            jdbcTemplate.update("INSERT INTO user_cards (id, user_id, card_id) VALUES (?, ?, ?)", id, user.getId(),
+                    card.getId());
+        }
+
+        userCardsConstraintMigrator.afterSingletonsInstantiated();
+
+        assertTrue(userCardsConstraintMigrator.constraintExists());
+        assertEquals(1000001, jdbcTemplate.queryForObject("SELECT MIN(id) FROM user_cards WHERE user_id = ?",
+                Integer.class, user.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_cards WHERE user_id = ?",
+                Integer.class, user.getId()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.app.prueba.repositories;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.app.prueba.services.CardNameIndex;
+import com.app.prueba.utils.Utils;
+
+// Runs the link insert against PostgreSQL, whose ON CONFLICT clause names the constraint H2 cannot take
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public class UserCardsRepositoryPostgreSQLTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Utils utils;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_cards");
+        userRepository.deleteAll();
+        cardRepository.deleteAll();
+        cardNameIndex.warm();
+    }
+
+    @Test
+    @DisplayName("Test - Existing links are skipped on the user card constraint")
+    public void testInsertIfAbsent() {
+        User user = saveUser();
+        Cards card = cardRepository.save(utils.createCard("PostgreSQL Card", "Linked"));
+
+        assertEquals(1, userCardsRepository.insertIfAbsent(user.getId(), card.getId()));
+        assertEquals(0, userCardsRepository.insertIfAbsent(user.getId(), card.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_cards WHERE user_id = ?",
+                Integer.class, user.getId()));
+    }
+
+    @Test
+    @DisplayName("Test - A duplicate link id still fails the insert")
+    public void testInsertIfAbsentDuplicateId() {
+        User user = saveUser();
+        Cards taken = cardRepository.save(utils.createCard("PostgreSQL Taken", "Linked"));
+        Cards card = cardRepository.save(utils.createCard("PostgreSQL Card", "Linked"));
+        // The next link insert draws the id of a link added behind the sequence
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('user_cards_seq')", Long.class);
+        jdbcTemplate.queryForObject("SELECT setval('user_cards_seq', ?, false)", Long.class, next);
+        jdbcTemplate.update("INSERT INTO user_cards (id, user_id, card_id) VALUES (?, ?, ?)", next,
+                user.getId(), taken.getId());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userCardsRepository.insertIfAbsent(user.getId(), card.getId()));
+    }
+
+    private User saveUser() {
+        return userRepository.save(utils.createUser("PostgreSQL", "User", "postgresqluser@gmail.com",
+                "postgresqluser", "password", utils.generateRandomPhoneNumber()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.app.prueba.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import com.app.prueba.services.JwtService;
+
+public class JwtAuthenticationFilterTest {
+
+    private JwtService jwtService;
+
+    private VerifiedTokenCache tokenCache;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = new JwtService("your_256_bit_secret_key_your_256_bit_secret_key", 60000L, "");
+        tokenCache = new VerifiedTokenCache(2, 60000L);
+        filter = new JwtAuthenticationFilter(jwtService, tokenCache,
+                AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/auth/**"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse doFilter(String authorization) throws Exception {
+        return doFilter("GET", "/api/cards", authorization, new MockFilterChain());
+    }
+
+    private MockHttpServletResponse doFilter(String method, String uri, String authorization, MockFilterChain chain)
+            throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Test - Requests without token continue anonymously")
+    public void testNoToken() throws Exception {
+        assertEquals(200, doFilter(null).getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Test - Valid token authenticates and is cached")
+    public void testValidToken() throws Exception {
+        String token = jwtService.generateToken("testuser");
+
+        assertEquals(200, doFilter("Bearer " + token).getStatus());
+        assertEquals("testuser", SecurityContextHolder.getContext().getAuthentication().getName());
+        assertEquals(0, tokenCache.getHitCount());
+        assertEquals(1, tokenCache.getMissCount());
+
+        assertEquals(200, doFilter("Bearer " + token).getStatus());
+        assertEquals("testuser", SecurityContextHolder.getContext().getAuthentication().getName());
+        assertEquals(1, tokenCache.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Test - Invalid token is rejected")
+    public void testInvalidToken() throws Exception {
+        MockHttpServletResponse response = doFilter("Bearer invalid.token.value");
+
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Invalid or expired token"));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Test - Expired token is ignored on login and rejected elsewhere")
+    public void testExpiredTokenOnAnonymousPath() throws Exception {
+        String expired = new JwtService("your_256_bit_secret_key_your_256_bit_secret_key", -60000L, "")
+                .generateToken("testuser");
+
+        MockFilterChain chain = new MockFilterChain();
+        assertEquals(200, doFilter("POST", "/api/auth/login", "Bearer " + expired, chain).getStatus());
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        chain = new MockFilterChain();
+        assertEquals(401, doFilter("POST", "/api/cards", "Bearer " + expired, chain).getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    @DisplayName("Test - Forged token reusing a cached signature is rejected")
+    public void testForgedTokenWithCachedSignature() throws Exception {
+        String token = jwtService.generateToken("testuser");
+        doFilter("Bearer " + token);
+
+        String otherPayload = jwtService.generateToken("admin").split("\\.")[1];
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + otherPayload + "." + parts[2];
+
+        assertEquals(401, doFilter("Bearer " + forged).getStatus());
+    }
+
+    @Test
+    @DisplayName("Test - Tokens are evicted beyond the maximum size")
+    public void testEviction() {
+        tokenCache.put("a.b.first", "first", Long.MAX_VALUE);
+        tokenCache.put("a.b.second", "second", Long.MAX_VALUE);
+        tokenCache.getSubject("a.b.first");
+        tokenCache.put("a.b.third", "third", Long.MAX_VALUE);
+
+        assertEquals(2, tokenCache.size());
+        assertEquals(1, tokenCache.getEvictionCount());
+        long cached = Stream.of("first", "second", "third")
+                .filter(name -> name.equals(tokenCache.getSubject("a.b." + name))).count();
+        assertEquals(2, cached);
+    }
+
+    @Test
+    @DisplayName("Test - Expired entries are not served")
+    public void testExpiredEntry() {
+        tokenCache.put("a.b.expired", "expired", System.currentTimeMillis() - 1);
+
+        assertNull(tokenCache.getSubject("a.b.expired"));
+        assertEquals(0, tokenCache.size());
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.prueba.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_200_000);
+
+    private final LoginRateLimiter limiter = new LoginRateLimiter(60000, 3, 2, 1024, now::get);
+
+    @Test
+    @DisplayName("Test - Attempts from one address are limited within the window")
+    public void testPerIpLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("10.0.0.1"));
+        }
+
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Test - Failed logins block the user")
+    public void testPerAccountLimit() {
+        limiter.failed(42);
+        assertFalse(limiter.isBlocked(42));
+        limiter.failed(42);
+
+        assertTrue(limiter.isBlocked(42));
+        assertFalse(limiter.isBlocked(43));
+    }
+
+    @Test
+    @DisplayName("Test - Unrelated accounts stay unblocked while the expected number of keys is counted")
+    public void testUnrelatedAccountsUnderLoad() {
+        LoginRateLimiter loaded = new LoginRateLimiter(60000, 30, 5, 10000, now::get);
+        // Half the expected keys are accounts failing until blocked, half addresses at their limit
+        for (int userId = 1; userId <= 5000; userId++) {
+            for (int i = 0; i < 5; i++) {
+                loaded.failed(userId);
+            }
+            assertTrue(loaded.isBlocked(userId));
+        }
+        for (int ip = 0; ip < 5000; ip++) {
+            for (int i = 0; i < 30; i++) {
+                loaded.tryAcquire("10.1." + (ip >> 8) + "." + (ip & 0xff));
+            }
+        }
+
+        int blocked = 0;
+        for (int userId = 100001; userId <= 110000; userId++) {
+            if (loaded.isBlocked(userId)) {
+                blocked++;
+            }
+        }
+        assertTrue(blocked <= 2, blocked + " of 10000 unrelated accounts blocked");
+        assertTrue(loaded.tryAcquire("10.2.0.1"));
+    }
+
+    @Test
+    @DisplayName("Test - Keys with the same String hash code are counted apart")
+    public void testEqualHashCodes() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("Aa"));
+        }
+
+        assertFalse(limiter.tryAcquire("Aa"));
+        assertTrue(limiter.tryAcquire("BB"));
+    }
+
+    @Test
+    @DisplayName("Test - Counts restart with the next window")
+    public void testWindowReset() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("10.0.0.1");
+        }
+        limiter.failed(42);
+        limiter.failed(42);
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        now.addAndGet(15000);
+        assertEquals(45, limiter.retryAfterSeconds());
+
+        now.addAndGet(45000);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.isBlocked(42));
+        assertEquals(60, limiter.retryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("Test - Concurrent attempts overshoot the limit by at most the racing threads")
+    public void testConcurrentAttempts() throws InterruptedException {
+        LoginRateLimiter shared = new LoginRateLimiter(60000, 1000, 5, 1024, now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            executor.execute(() -> {
+                if (shared.tryAcquire("10.0.0.1")) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(allowed.get() >= 1000 && allowed.get() < 1008, allowed.get() + " allowed");
+    }
+}
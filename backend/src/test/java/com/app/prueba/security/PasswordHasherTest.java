@@ -0,0 +1,69 @@
+package com.app.prueba.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    public void setUp() {
+        passwordHasher = new PasswordHasher(4, 1, 1, 5000L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test - Hash and match password")
+    public void testHashAndMatch() {
+        String hash = passwordHasher.hash("password");
+
+        assertTrue(passwordHasher.isHashed(hash));
+        assertTrue(passwordHasher.matches("password", hash));
+        assertFalse(passwordHasher.matches("wrongpassword", hash));
+        assertFalse(passwordHasher.needsRehash(hash));
+    }
+
+    @Test
+    @DisplayName("Test - Legacy plain text passwords match once and need rehash")
+    public void testLegacyPassword() {
+        assertTrue(passwordHasher.matches("password", "password"));
+        assertFalse(passwordHasher.matches("wrongpassword", "password"));
+        assertTrue(passwordHasher.needsRehash("password"));
+    }
+
+    @Test
+    @DisplayName("Test - Hashes made with another cost need rehash")
+    public void testCostChange() {
+        PasswordHasher strongerHasher = new PasswordHasher(5, 1, 1, 5000L);
+        try {
+            String hash = passwordHasher.hash("password");
+
+            assertTrue(strongerHasher.matches("password", hash));
+            assertTrue(strongerHasher.needsRehash(hash));
+        } finally {
+            strongerHasher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test - Hashing is rejected when it does not finish in time")
+    public void testHashingTimeout() {
+        PasswordHasher slowHasher = new PasswordHasher(12, 1, 1, 1L);
+        try {
+            assertThrows(RejectedExecutionException.class, () -> slowHasher.hash("password"));
+        } finally {
+            slowHasher.shutdown();
+        }
+    }
+}
@@ -7,14 +7,23 @@ import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.app.prueba.models.User;
 import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.security.CredentialCache;
+import com.app.prueba.security.PasswordHasher;
+import com.app.prueba.security.UserIdentifierFilter;
 import com.app.prueba.utils.Utils;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @SpringBootTest
 @ActiveProfiles("test")
 public class AuthServiceTest {
@@ -30,13 +39,41 @@ public class AuthServiceTest {
     @Autowired
     private Utils utils;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserIdentifierFilter userIdentifierFilter;
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
     @BeforeEach
     public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
         userRepository.deleteAll();
 
         testUser = utils.createUser("Test", "User", "testuserauthservice@gmail.com", "testuserauthservice",
                 "password", utils.generateRandomPhoneNumber());
         userRepository.save(testUser);
+
+        // Users were saved and deleted behind the services' back
+        userIdentifierFilter.rebuild();
+        credentialCache.invalidateAll();
     }
 
     @Test
@@ -62,6 +99,48 @@ public class AuthServiceTest {
         assertTrue((Boolean) response.get("isValid"));
     }
 
+    @Test
+    @DisplayName("Test de registro de usuario con contraseña hasheada")
+    public void testRegisterHashesPassword() {
+        User newUser = utils.createUser("New", "User", "hasheduserauth@gmail.com", "hasheduserauth",
+                "newpassword", utils.generateRandomPhoneNumber());
+
+        authService.register(newUser);
+
+        String storedPassword = userRepository.findUserByUsername("hasheduserauth").getPassword();
+        assertTrue(passwordHasher.isHashed(storedPassword));
+        assertTrue(passwordHasher.matches("newpassword", storedPassword));
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión que actualiza una contraseña en texto plano")
+    public void testLoginRehashesLegacyPassword() {
+        userService.getUserById(testUser.getId());
+        long version = userRepository.findById(testUser.getId()).orElseThrow().getVersion();
+
+        authService.login(testUser);
+
+        User stored = userRepository.findUserByUsername("testuserauthservice");
+        String storedPassword = stored.getPassword();
+        assertTrue(passwordHasher.isHashed(storedPassword));
+        assertEquals(version + 1, stored.getVersion());
+        assertNull(cacheManager.getCache("users").get(testUser.getId()));
+        assertNotNull(authService.login(testUser).get("token"));
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión con email en el campo de nombre de usuario")
+    public void testLoginWithEmailAsUsername() {
+        User emailLogin = new User();
+        emailLogin.setUsername("testuserauthservice@gmail.com");
+        emailLogin.setPassword("password");
+
+        Map<String, Object> response = authService.login(emailLogin);
+
+        assertNotNull(response.get("token"));
+        assertEquals(testUser.getId(), response.get("userId"));
+    }
+
     @Test
     @DisplayName("Test de inicio de sesión con nombre de usuario correcto y contraseña incorrecta")
     public void testLoginInvalidPassword() {
@@ -87,4 +166,103 @@ public class AuthServiceTest {
 
         assertEquals("Username or email not found", response.get("message"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test de inicio de sesión con un usuario inexistente sin consultar la base de datos")
+    public void testLoginUnknownUserRunsNoStatement() {
+        User nonExistentUser = new User();
+        nonExistentUser.setUsername("unknownauthuser");
+        nonExistentUser.setEmail("unknownauthuser@gmail.com");
+        nonExistentUser.setPassword("password");
+        statistics.clear();
+
+        Map<String, Object> response = authService.login(nonExistentUser);
+
+        assertEquals("Username or email not found", response.get("message"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión repetido con las credenciales en caché")
+    public void testLoginUsesCachedCredentials() {
+        User login = new User();
+        login.setUsername("testuserauthservice");
+        login.setPassword("password");
+        // The first login rehashes the plain text password and drops the cached entry
+        authService.login(login);
+        authService.login(login);
+        statistics.clear();
+
+        Map<String, Object> response = authService.login(login);
+
+        assertEquals(testUser.getId(), response.get("userId"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión justo después del registro")
+    public void testLoginAfterRegister() {
+        User newUser = utils.createUser("New", "User", "registeredauth@gmail.com", "registeredauth",
+                "newpassword", utils.generateRandomPhoneNumber());
+        Map<String, Object> registered = authService.register(newUser);
+
+        User login = new User();
+        login.setEmail("registeredauth@gmail.com");
+        login.setPassword("newpassword");
+        Map<String, Object> response = authService.login(login);
+
+        assertEquals(registered.get("userId"), response.get("userId"));
+        assertNotNull(response.get("token"));
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión tras cambiar la contraseña con las credenciales en caché")
+    public void testLoginAfterPasswordChange() {
+        authService.login(testUser);
+        authService.login(testUser);
+
+        User stored = userRepository.findById(testUser.getId()).orElseThrow();
+        stored.setPassword("changedpassword");
+        userService.updateUser(stored);
+
+        assertEquals("Invalid password", authService.login(testUser).get("message"));
+        testUser.setPassword("changedpassword");
+        assertNotNull(authService.login(testUser).get("token"));
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión de un usuario creado en otra instancia con un id menor")
+    public void testLoginUserCreatedElsewhereWithLowerId() {
+        // Another instance hands out ids from its own block and may commit later
+        jdbcTemplate.update("INSERT INTO users (id, name, last_name, email, username, password, phone, version, "
+                + "updated_at) VALUES (?, 'Other', 'Instance', 'otherinstance@gmail.com', 'otherinstance', "
+                + "'password', ?, 0, CURRENT_TIMESTAMP)", testUser.getId() - 1, utils.generateRandomPhoneNumber());
+        User login = new User();
+        login.setUsername("otherinstance");
+        login.setPassword("password");
+        assertEquals("Username or email not found", authService.login(login).get("message"));
+
+        userIdentifierFilter.refresh();
+
+        assertEquals(testUser.getId() - 1, authService.login(login).get("userId"));
+    }
+
+    @Test
+    @DisplayName("Test de inicio de sesión bloqueado tras fallos con el nombre de usuario y el email")
+    public void testLoginBlockedAfterFailuresWithUsernameAndEmail() {
+        User byUsername = new User();
+        byUsername.setUsername("testuserauthservice");
+        byUsername.setPassword("wrongpassword");
+        User byEmail = new User();
+        byEmail.setEmail("testuserauthservice@gmail.com");
+        byEmail.setPassword("wrongpassword");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Invalid password", authService.login(byUsername).get("message"));
+        }
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Invalid password", authService.login(byEmail).get("message"));
+        }
+
+        assertEquals(AuthService.TOO_MANY_ATTEMPTS, authService.login(testUser).get("message"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.utils.Utils;
+
+// Two users per batch with two cards, so the three users below take two batches
+@SpringBootTest(properties = "cards.assignment.batch-size=4")
+@ActiveProfiles("test")
+public class CardAssignmentServiceTest {
+
+    @Autowired
+    private CardAssignmentService cardAssignmentService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private Utils utils;
+
+    private List<Integer> userIds;
+
+    private List<Integer> cardIds;
+
+    @BeforeEach
+    public void setUp() {
+        userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userIds.add(userRepository.save(utils.createUser("Assigned", "User", "assigneduser" + i + "@gmail.com",
+                    "assigneduser" + i, "password", utils.generateRandomPhoneNumber())).getId());
+        }
+        cardIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            cardIds.add(cardRepository.save(utils.createCard("Starter Card " + i, "Starter")).getId());
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userCardsRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        // Deleted behind the services' back
+        cardNameIndex.warm();
+    }
+
+    private static AssignmentJob await(AssignmentJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (job.getStatus() == AssignmentJob.Status.PENDING || job.getStatus() == AssignmentJob.Status.RUNNING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Assignment did not finish");
+            Thread.sleep(20);
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("Test - Assign cards to users")
+    public void testAssignCards() throws Exception {
+        AssignmentJob job = await(cardAssignmentService.createJob(userIds, cardIds));
+
+        assertEquals(AssignmentJob.Status.COMPLETED, job.getStatus());
+        assertEquals(6, job.getAssigned());
+        assertEquals(3, job.getProcessedUsers());
+        assertEquals(100, job.toMap().get("progress"));
+        for (int userId : userIds) {
+            assertEquals(cardIds, userService.findCardsByUserId(userId).stream().map(CardView::id).toList());
+        }
+        assertEquals(6, userCardsRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test - Existing links and missing users are skipped")
+    public void testAssignCardsSkipsExisting() throws Exception {
+        Cards card = cardRepository.findById(cardIds.get(0)).orElseThrow();
+        User user = userRepository.findById(userIds.get(0)).orElseThrow();
+        userCardsRepository.insertIfAbsent(user.getId(), card.getId());
+        // Cached before the assignment, evicted by it
+        assertEquals(1, userService.getCardsVersion(user.getId()).count());
+
+        List<Integer> users = new ArrayList<>(userIds);
+        users.add(Integer.MAX_VALUE);
+        users.add(userIds.get(1));
+        AssignmentJob job = await(cardAssignmentService.createJob(users, cardIds));
+
+        assertEquals(AssignmentJob.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getUsers());
+        assertEquals(5, job.getAssigned());
+        assertEquals(1, job.getAlreadyAssigned());
+        assertEquals(1, job.getMissingUsers());
+        assertEquals(6, userCardsRepository.count());
+        assertNull(cacheManager.getCache("userCardVersions").get(user.getId()));
+        assertEquals(2, userService.getCardsVersion(user.getId()).count());
+
+        // Running it again only finds existing links
+        AssignmentJob again = await(cardAssignmentService.createJob(userIds, cardIds));
+        assertEquals(0, again.getAssigned());
+        assertEquals(6, again.getAlreadyAssigned());
+        assertEquals(6, userCardsRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test - Assignments need existing cards and non-empty lists")
+    public void testInvalidAssignments() {
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                () -> cardAssignmentService.createJob(userIds, List.of(cardIds.get(0), Integer.MAX_VALUE)));
+        assertEquals("Cards not found: [" + Integer.MAX_VALUE + "]", missing.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> cardAssignmentService.createJob(List.of(), cardIds));
+        assertThrows(IllegalArgumentException.class, () -> cardAssignmentService.createJob(userIds, null));
+        assertNull(cardAssignmentService.getJob("unknown"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.dto.CardView;
+import com.app.prueba.models.Cards;
+import com.app.prueba.models.User;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.utils.Utils;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CardExportServiceTest {
+
+    @Autowired
+    private CardExportService cardExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private Utils utils;
+
+    @Value("${cards.export.directory}")
+    private String directory;
+
+    private User testUser;
+
+    private List<Cards> userCards;
+
+    private Cards otherCard;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = utils.createUser("Test", "User", "testuserexport@gmail.com", "testuserexport", "password",
+                utils.generateRandomPhoneNumber());
+        userRepository.save(testUser);
+
+        userCards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userCards.add(userService.addCardToUser(testUser.getId(), utils.createCard("Export Card " + i, "Export"))
+                    .getCard());
+        }
+        otherCard = cardRepository.save(utils.createCard("Other Card", "Not owned"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userCardsRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        // Deleted behind the services' back
+        cardNameIndex.warm();
+    }
+
+    private static ExportJob await(ExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (job.getStatus() == ExportJob.Status.PENDING || job.getStatus() == ExportJob.Status.RUNNING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Export did not finish");
+            Thread.sleep(20);
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("Test - Export cards of a user to gzip NDJSON")
+    public void testExportUserNdjson() throws Exception {
+        ExportJob job = await(cardExportService.createJob(CardExportService.Format.NDJSON, null, null,
+                testUser.getId()));
+
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getExported());
+        assertEquals(3L, job.toMap().get("exported"));
+
+        List<String> lines;
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(job.getFile()))) {
+            lines = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("\"name\":\"Export Card 0\""));
+        assertTrue(lines.stream().noneMatch(line -> line.contains("Other Card")));
+    }
+
+    @Test
+    @DisplayName("Test - Export an id range to ZIP")
+    public void testExportRangeZip() throws Exception {
+        int fromId = userCards.get(1).getId();
+        ExportJob job = await(cardExportService.createJob(CardExportService.Format.ZIP, fromId, otherCard.getId(),
+                null));
+
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus());
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(job.getFile()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(List.of(fromId + "-card-Export_Card_1.json",
+                userCards.get(2).getId() + "-card-Export_Card_2.json",
+                otherCard.getId() + "-card-Other_Card.json"), entries);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cardExportService.writeFile(job, outputStream);
+        assertEquals(Files.size(job.getFile()), outputStream.size());
+    }
+
+    @Test
+    @DisplayName("Test - Export job for an unknown user")
+    public void testExportUnknownUser() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cardExportService.createJob(CardExportService.Format.NDJSON, null, null, -1));
+    }
+
+    @Test
+    @DisplayName("Test - Export a single card in the background")
+    public void testExportCard() throws IOException, InterruptedException {
+        Cards card = userCards.get(0);
+        Path file = Path.of(directory).toAbsolutePath().resolve(card.getId() + "-card-Export_Card_0.json");
+        Files.deleteIfExists(file);
+
+        cardExportService.exportCard(CardView.from(card), Map.of("id", card.getId(), "name", card.getName()));
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!Files.exists(file)) {
+            assertTrue(System.currentTimeMillis() < deadline, "Card file was not written");
+            Thread.sleep(20);
+        }
+        assertTrue(Files.readString(file).contains("\"name\":\"Export Card 0\""));
+    }
+}
@@ -0,0 +1,184 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.prueba.models.User;
+import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
+import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.utils.Utils;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CardImportServiceTest {
+
+    @Autowired
+    private CardImportService cardImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
+    @Autowired
+    private CardNameIndex cardNameIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Utils utils;
+
+    private User testUser;
+
+    @BeforeEach
+    public void setUp() {
+        testUser = utils.createUser("Test", "User", "testuserimport@gmail.com", "testuserimport", "password",
+                utils.generateRandomPhoneNumber());
+        userRepository.save(testUser);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userCardsRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        // Deleted behind the services' back
+        cardNameIndex.warm();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+
+    @Test
+    @DisplayName("Test - Import cards from NDJSON")
+    @SuppressWarnings("unchecked")
+    public void testImportNdjson() throws IOException {
+        String ndjson = """
+                {"name":"First Card","description":"First"}
+                {"name":"Se","description":"Too short"}
+                {"name":"Second Card","description":"Second"}
+                {"name":"First Card","description":"Duplicated"}
+                {"name":"Third Card"}
+                """;
+
+        Map<String, Object> report = cardImportService.importCards(stream(ndjson), testUser.getId());
+
+        assertEquals(3, report.get("imported"));
+        assertEquals(2, report.get("failed"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(2, errors.size());
+        assertEquals(2L, errors.get(0).get("line"));
+        assertEquals(Map.of("name", "Name must be at least 3 characters"), errors.get(0).get("errors"));
+        assertEquals(4L, errors.get(1).get("line"));
+        assertEquals(Map.of("name", "Card name already exists"), errors.get(1).get("errors"));
+        assertEquals(3, cardRepository.findCardsByUserId(testUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - Import cards from a JSON array")
+    public void testImportJsonArray() throws IOException {
+        String json = "[{\"name\":\"First Card\"},\n{\"name\":\"Second Card\"},\n42]";
+
+        Map<String, Object> report = cardImportService.importCards(stream(json), testUser.getId());
+
+        assertEquals(2, report.get("imported"));
+        assertEquals(1, report.get("failed"));
+        assertEquals(2, cardRepository.findCardsByUserId(testUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - Names already in use are reported without failing the rest of the chunk")
+    @SuppressWarnings("unchecked")
+    public void testImportExistingNames() throws IOException {
+        cardImportService.importCards(stream("{\"name\":\"First Card\"}"), testUser.getId());
+
+        String ndjson = """
+                {"name":"Second Card"}
+                {"name":"First Card"}
+                {"name":"Third Card"}
+                """;
+        Map<String, Object> report = cardImportService.importCards(stream(ndjson), testUser.getId());
+
+        assertEquals(2, report.get("imported"));
+        assertEquals(1, report.get("failed"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(2L, errors.get(0).get("line"));
+        assertEquals(3, cardRepository.findCardsByUserId(testUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - Names stored behind the name index are reported as duplicates")
+    @SuppressWarnings("unchecked")
+    public void testImportInsertFailures() throws IOException {
+        // Written by something else, so the name index does not know it
+        jdbcTemplate.update("INSERT INTO cards (id, name, description, version) VALUES (?, 'Stored Card', 'Stored', 0)",
+                Integer.MAX_VALUE);
+
+        Map<String, Object> report = cardImportService.importCards(stream("{\"name\":\"Stored Card\"}"),
+                testUser.getId());
+        assertEquals(0, report.get("imported"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(Map.of("name", "Card name already exists"), errors.get(0).get("errors"));
+    }
+
+    @Test
+    @DisplayName("Test - A card rejected for another reason fails alone and the rest of the chunk is imported")
+    @SuppressWarnings("unchecked")
+    public void testImportOtherInsertFailure() throws IOException {
+        // Passes validation but not the description column
+        String ndjson = "{\"name\":\"First Card\"}\n"
+                + "{\"name\":\"Long Card\",\"description\":\"" + "x".repeat(300) + "\"}\n"
+                + "{\"name\":\"Third Card\"}\n";
+
+        Map<String, Object> report = cardImportService.importCards(stream(ndjson), testUser.getId());
+
+        assertEquals(2, report.get("imported"));
+        assertEquals(1, report.get("failed"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(1, errors.size());
+        assertEquals(2L, errors.get(0).get("line"));
+        assertEquals(Map.of("card", CardImportService.INSERT_FAILED), errors.get(0).get("errors"));
+        assertEquals(2, cardRepository.findCardsByUserId(testUser.getId()).size());
+        // The name of the failed card was released
+        assertNull(cardNameIndex.cardId("Long Card"));
+    }
+
+    @Test
+    @DisplayName("Test - Import stops at malformed JSON and keeps the cards read so far")
+    public void testImportMalformedJson() throws IOException {
+        String ndjson = "{\"name\":\"First Card\"}\n{\"name\":";
+
+        Map<String, Object> report = cardImportService.importCards(stream(ndjson), testUser.getId());
+
+        assertEquals(1, report.get("imported"));
+        assertEquals(1, report.get("failed"));
+    }
+
+    @Test
+    @DisplayName("Test - Import cards (INVALID USER ID)")
+    public void testImportInvalidUser() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cardImportService.importCards(stream("{\"name\":\"First Card\"}"), testUser.getId() + 1000));
+    }
+}
@@ -0,0 +1,100 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.app.prueba.models.Cards;
+import com.app.prueba.repositories.CardRepository;
+
+public class CardNameIndexTest {
+
+    private CardNameIndex index;
+
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    public void setUp() {
+        index = new CardNameIndex(1000, 0.01);
+        cardRepository = mock(CardRepository.class);
+        ReflectionTestUtils.setField(index, "cardRepository", cardRepository);
+        when(cardRepository.findIdByName("Red Dragon")).thenReturn(Optional.of(1));
+        index.added(card(1, "Red Dragon"));
+    }
+
+    private static Cards card(int id, String name) {
+        Cards card = new Cards();
+        card.setId(id);
+        card.setName(name);
+        return card;
+    }
+
+    @Test
+    @DisplayName("Test - Names in use cannot be reserved")
+    public void testReserve() {
+        assertEquals(1, index.cardId("Red Dragon"));
+        assertFalse(index.reserve("Red Dragon"));
+        assertThrows(DuplicateKeyException.class, () -> index.reserveOrThrow("Red Dragon"));
+
+        assertTrue(index.reserve("Blue Dragon"));
+        assertFalse(index.reserve("Blue Dragon"));
+        assertEquals(0, index.cardId("Blue Dragon"));
+    }
+
+    @Test
+    @DisplayName("Test - Released and removed names are free again")
+    public void testReleaseAndRemove() {
+        assertTrue(index.reserve("Blue Dragon"));
+        index.release("Blue Dragon");
+        assertFalse(index.contains("Blue Dragon"));
+
+        index.removed("Red Dragon", 1);
+        assertTrue(index.reserve("Red Dragon"));
+    }
+
+    @Test
+    @DisplayName("Test - A release does not free a name once its card is added")
+    public void testReleaseAfterAdded() {
+        assertTrue(index.reserve("Blue Dragon"));
+        index.added(card(2, "Blue Dragon"));
+        index.release("Blue Dragon");
+
+        assertEquals(2, index.cardId("Blue Dragon"));
+    }
+
+    @Test
+    @DisplayName("Test - Stale entries are repaired from the database before rejecting a name")
+    public void testReserveStaleName() {
+        index.added(card(2, "Gone Dragon"));
+        index.added(card(3, "Moved Dragon"));
+        when(cardRepository.findIdByName("Gone Dragon")).thenReturn(Optional.empty());
+        when(cardRepository.findIdByName("Moved Dragon")).thenReturn(Optional.of(4));
+
+        assertTrue(index.reserve("Gone Dragon"));
+        assertFalse(index.reserve("Moved Dragon"));
+        assertEquals(4, index.cardId("Moved Dragon"));
+        // Reservations are never checked against the database
+        assertFalse(index.reserve("Gone Dragon"));
+        verify(cardRepository, times(2)).findIdByName(anyString());
+    }
+
+    @Test
+    @DisplayName("Test - A batch is split into new and duplicate names in one pass")
+    public void testReserveAll() {
+        CardNameIndex.Partition<String> partition = index.reserveAll(
+                List.of("Green Dragon", "Red Dragon", "White Dragon", "Green Dragon"), name -> name);
+
+        assertEquals(List.of("Green Dragon", "White Dragon"), partition.reserved());
+        assertEquals(List.of("Red Dragon", "Green Dragon"), partition.duplicates());
+        assertEquals(3, index.size());
+    }
+}
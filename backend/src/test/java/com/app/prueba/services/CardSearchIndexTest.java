@@ -0,0 +1,69 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CardSearchIndexTest {
+
+    private CardSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new CardSearchIndex();
+        index.index(1, "Dragón Rojo", "Breathes fire");
+        index.index(2, "Fire Elemental", "A creature made of flames");
+        index.index(3, "Water Elemental", "Puts out fire");
+        index.index(4, "Red Dragon Whelp", null);
+    }
+
+    @Test
+    @DisplayName("Test - Words match by prefix, ignoring case and accents")
+    public void testPrefixMatch() {
+        assertEquals(List.of(1), index.search("DRAG roj", 10, 0).ids());
+        assertEquals(List.of(1, 4), index.search("dragon", 10, 0).ids().stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Test - Name matches rank above description matches")
+    public void testRanking() {
+        CardSearchIndex.Result result = index.search("fire", 10, 0);
+
+        assertEquals(3, result.total());
+        assertEquals(2, result.ids().get(0));
+        // Equal scores keep id order
+        assertEquals(List.of(1, 3), result.ids().subList(1, 3));
+    }
+
+    @Test
+    @DisplayName("Test - Results are paginated after ranking")
+    public void testPagination() {
+        CardSearchIndex.Result page = index.search("fire", 1, 1);
+
+        assertEquals(3, page.total());
+        assertEquals(List.of(1), page.ids());
+        assertEquals(List.of(), index.search("fire", 10, 5).ids());
+    }
+
+    @Test
+    @DisplayName("Test - Updates replace the terms of a card and removals drop them")
+    public void testUpdateAndRemove() {
+        index.index(2, "Earth Elemental", "Made of stone");
+        assertEquals(List.of(1, 3), index.search("fire", 10, 0).ids());
+        assertEquals(List.of(2), index.search("stone", 10, 0).ids());
+
+        index.remove(2);
+        assertEquals(List.of(), index.search("stone", 10, 0).ids());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Test - Queries without a long enough word are rejected")
+    public void testShortQuery() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("a !", 10, 0));
+    }
+}
@@ -2,21 +2,39 @@ package com.app.prueba.services;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.CardPayload;
+import com.app.prueba.dto.CardView;
 import com.app.prueba.models.Cards;
 import com.app.prueba.models.User;
 import com.app.prueba.repositories.CardRepository;
 import com.app.prueba.repositories.UserRepository;
 import com.app.prueba.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -26,6 +44,9 @@ public class CardServiceTest {
     @Autowired
     private CardService cardService;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private CardRepository cardRepository;
 
@@ -38,8 +59,21 @@ public class CardServiceTest {
     @Autowired
     private Utils utils;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @BeforeEach
     public void setUp() {
+        cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
         userRepository.deleteAll();
         cardRepository.deleteAll();
 
@@ -57,12 +91,36 @@ public class CardServiceTest {
         assertEquals(1, cardService.getAllCards().size());
     }
 
+    @Test
+    @DisplayName("Test - Get cards page by cursor")
+    @SuppressWarnings("unchecked")
+    public void testGetCardsPage() {
+        Cards secondCard = cardRepository.save(utils.createCard("Second Card", "Second Card Description"));
+
+        Map<String, Object> firstPage = cardService.getCardsPage(null, 1);
+        assertEquals(1, ((List<CardView>) firstPage.get("cards")).size());
+        assertEquals(testCard.getId(), firstPage.get("nextCursor"));
+
+        Map<String, Object> lastPage = cardService.getCardsPage((Integer) firstPage.get("nextCursor"), 1);
+        assertEquals(secondCard.getId(), ((List<CardView>) lastPage.get("cards")).get(0).id());
+        assertNull(lastPage.get("nextCursor"));
+    }
+
     @Test
     @DisplayName("Test - Get card by id")
     public void testGetCardById() {
-        Cards card = cardService.getCardById(testCard.getId());
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CardView card = cardService.getCardById(testCard.getId());
         assertNotNull(card);
-        assertEquals(testCard.getId(), card.getId());
+        assertEquals(testCard.getId(), card.id());
+        assertEquals(testCard.getDescription(), card.description());
+        assertEquals(testCard.getVersion(), cardService.getCardPayload(testCard.getId()).version());
+        // Both read the columns of the response, the card entity is never loaded
+        assertEquals(0, statistics.getEntityLoadCount());
     }
 
     @Test
@@ -78,6 +136,116 @@ public class CardServiceTest {
         assertNull(cardService.getCardById(-2));
     }
 
+    @Test
+    @DisplayName("Test - Get card by id is cached until it is updated")
+    public void testGetCardByIdCache() {
+        CardView cached = cardService.getCardById(testCard.getId());
+        assertSame(cached, cardService.getCardById(testCard.getId()));
+        assertNotNull(cacheManager.getCache("cards").get(testCard.getId()));
+
+        String description = cached.description();
+        Cards card = cardService.findCardForUpdate(testCard.getId());
+        card.setDescription("Updated Description");
+        // The copy being changed is not what readers get until it is saved
+        assertEquals(description, cardService.getCardById(testCard.getId()).description());
+        cardService.updateCard(card);
+        assertNull(cacheManager.getCache("cards").get(testCard.getId()));
+        assertEquals("Updated Description", cardService.getCardById(testCard.getId()).description());
+    }
+
+    @Test
+    @DisplayName("Test - Card version is read without loading the card and bumped on update")
+    public void testGetCardVersion() {
+        assertEquals(0L, cardService.getCardVersion(testCard.getId()));
+        assertNull(cardService.getCardVersion(testCard.getId() + 1));
+
+        testCard.setDescription("Updated Description");
+        cardService.updateCard(testCard);
+        cardRepository.flush();
+
+        assertEquals(1L, cardService.getCardVersion(testCard.getId()));
+        assertEquals(1L, cardService.findCardForUpdate(testCard.getId()).getVersion());
+    }
+
+    @Test
+    @DisplayName("Test - Card payload is serialized once and evicted on update")
+    public void testGetCardPayloadCache() throws IOException {
+        CardPayload payload = cardService.getCardPayload(testCard.getId());
+        assertSame(payload, cardService.getCardPayload(testCard.getId()));
+        assertEquals(testCard.getName(), objectMapper.readTree(payload.json()).get("name").asText());
+        // Too small to be worth compressing
+        assertNull(payload.gzip());
+
+        testCard.setDescription("A long description that repeats itself. ".repeat(6));
+        cardService.updateCard(testCard);
+        assertNull(cacheManager.getCache("cardPayloads").get(testCard.getId()));
+
+        CardPayload updated = cardService.getCardPayload(testCard.getId());
+        assertNotNull(updated.gzip());
+        assertTrue(updated.gzip().length < updated.json().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(updated.gzip()))) {
+            assertArrayEquals(updated.json(), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Test - Card payload is evicted on delete")
+    public void testGetCardPayloadDeleted() {
+        assertNotNull(cardService.getCardPayload(testCard.getId()));
+        cardService.deleteCard(testCard.getId());
+
+        assertNull(cardService.getCardPayload(testCard.getId()));
+    }
+
+    @Test
+    @DisplayName("Test - Cached users embedding the card are evicted on update and delete")
+    public void testUsersEvictedWithCard() {
+        testUser.setCards(testCard);
+        userRepository.saveAndFlush(testUser);
+        assertEquals(testCard.getDescription(), userService.getUserById(testUser.getId()).cards().description());
+
+        Cards card = cardService.findCardForUpdate(testCard.getId());
+        card.setDescription("Updated Description");
+        cardService.updateCard(card);
+        assertNull(cacheManager.getCache("users").get(testUser.getId()));
+        entityManager.flush();
+        assertEquals("Updated Description", userService.getUserById(testUser.getId()).cards().description());
+
+        testUser.setCards(null);
+        userRepository.saveAndFlush(testUser);
+        cardService.deleteCard(testCard.getId());
+        assertNull(cacheManager.getCache("users").get(testUser.getId()));
+    }
+
+    @Test
+    @DisplayName("Test - Entity caches expire within seconds, other instances do not evict them")
+    public void testEntityCacheExpiry() {
+        for (String cacheName : List.of("cards", "users", "cardPayloads")) {
+            Cache<Object, Object> cache = ((CaffeineCache) cacheManager.getCache(cacheName)).getNativeCache();
+            assertEquals(Duration.ofSeconds(5), cache.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        }
+    }
+
+    @Test
+    @DisplayName("Test - Search follows card creation, update and deletion")
+    @SuppressWarnings("unchecked")
+    public void testSearchCards() {
+        Cards card = utils.createCard("Searchable Wyvern", "Flies over the searchable marsh");
+        cardService.createCard(card);
+
+        Map<String, Object> results = cardService.searchCards("wyv", 10, 0);
+        assertEquals(List.of("Searchable Wyvern"),
+                ((List<CardView>) results.get("cards")).stream().map(CardView::name).toList());
+
+        card.setName("Searchable Basilisk");
+        cardService.updateCard(card);
+        assertEquals(List.of(), cardService.searchCards("wyvern", 10, 0).get("cards"));
+        assertEquals(1, ((List<CardView>) cardService.searchCards("basil", 10, 0).get("cards")).size());
+
+        cardService.deleteCard(card.getId());
+        assertEquals(List.of(), cardService.searchCards("basilisk", 10, 0).get("cards"));
+    }
+
     @Test
     @DisplayName("Test - Create card")
     public void testCreateCard() {
@@ -87,6 +255,59 @@ public class CardServiceTest {
         assertEquals(2, cardService.getAllCards().size());
     }
 
+    @Test
+    @DisplayName("Test - Create card with a name in use is rejected before the insert")
+    public void testCreateCardDuplicateName() {
+        cardService.createCard(utils.createCard("Unique Card", "First"));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> cardService.createCard(utils.createCard("Unique Card", "Second")));
+        assertEquals(2, cardService.getAllCards().size());
+    }
+
+    @Test
+    @DisplayName("Test - Names renamed or deleted behind the name index are free again")
+    public void testCardNamesChangedBehindTheIndex() {
+        cardService.createCard(utils.createCard("Renamed Elsewhere", "First"));
+        cardService.createCard(utils.createCard("Deleted Elsewhere", "Second"));
+        // Another instance renames one card and deletes the other
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE cards SET name = 'New Name' WHERE name = 'Renamed Elsewhere'");
+        jdbcTemplate.update("DELETE FROM cards WHERE name = 'Deleted Elsewhere'");
+        entityManager.clear();
+
+        assertNotNull(cardService.createCard(utils.createCard("Renamed Elsewhere", "Reused")));
+        Map<String, Object> imported = cardService.importCardFromJSON(
+                utils.createCardMap("Deleted Elsewhere", "Reused"), testUser.getId());
+        assertEquals("Reused", ((CardView) imported.get("card")).description());
+
+        // A name the database confirms is still rejected
+        assertThrows(DuplicateKeyException.class,
+                () -> cardService.createCard(utils.createCard("Renamed Elsewhere", "Taken")));
+    }
+
+    @Test
+    @DisplayName("Test - Rename to a name in use is rejected and the new name is taken")
+    public void testUpdateCardDuplicateName() {
+        cardService.createCard(utils.createCard("First Name", "First"));
+        Cards second = utils.createCard("Second Name", "Second");
+        cardService.createCard(second);
+
+        // Detached, like the cards the controller updates
+        assertThrows(DuplicateKeyException.class, () -> cardService.updateCard(renamed(second, "First Name")));
+
+        cardService.updateCard(renamed(second, "Renamed"));
+        assertThrows(DuplicateKeyException.class,
+                () -> cardService.createCard(utils.createCard("Renamed", "Taken")));
+    }
+
+    private Cards renamed(Cards card, String name) {
+        Cards copy = utils.createCard(name, card.getDescription());
+        copy.setId(card.getId());
+        copy.setVersion(card.getVersion());
+        return copy;
+    }
+
     @Test
     @DisplayName("Test - Update card")
     public void testUpdateCard() {
@@ -127,4 +348,17 @@ public class CardServiceTest {
                         testUser.getId()));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Test - Importing the same card again links it once")
+    public void testImportSameCardFromJSONTwice() {
+        Map<String, Object> first = cardService.importCardFromJSON(
+                utils.createCardMap("Imported Card", "Imported Card Description"), testUser.getId());
+        Map<String, Object> retried = cardService.importCardFromJSON(
+                utils.createCardMap("Imported Card", "Imported Card Description"), testUser.getId());
+
+        assertEquals(first.get("card"), retried.get("card"));
+        assertEquals(1, cardRepository.findCardViewsByUserId(testUser.getId()).size());
+        assertThrows(DuplicateKeyException.class, () -> cardService.importCardFromJSON(
+                utils.createCardMap("Imported Card", "Another Description"), testUser.getId()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.app.prueba.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class JwtServiceTest {
+
+    private static final String SECRET = "your_256_bit_secret_key_your_256_bit_secret_key";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 60000L, "");
+    }
+
+    @Test
+    @DisplayName("Test - Generate and validate token")
+    public void testGenerateAndValidateToken() {
+        String token = jwtService.generateToken("testuser");
+
+        assertTrue(jwtService.validateToken(token));
+        assertEquals("testuser", jwtService.parseClaims(token).getSubject());
+    }
+
+    @Test
+    @DisplayName("Test - Invalid tokens are rejected")
+    public void testInvalidToken() {
+        String token = jwtService.generateToken("testuser");
+
+        assertFalse(jwtService.validateToken("not-a-token"));
+        assertFalse(jwtService.validateToken(token.substring(0, token.length() - 2)));
+        assertFalse(new JwtService("another_256_bit_secret_key_another_256_bit_key", 60000L, "")
+                .validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Test - Expired tokens are rejected")
+    public void testExpiredToken() {
+        JwtService expiredService = new JwtService(SECRET, -1000L, "");
+
+        assertFalse(expiredService.validateToken(expiredService.generateToken("testuser")));
+    }
+
+    @Test
+    @DisplayName("Test - Tokens signed before a rotation stay valid until the next one")
+    public void testRotate() {
+        String oldToken = jwtService.generateToken("testuser");
+
+        jwtService.rotate("rotated_256_bit_secret_key_rotated_256_bit_key");
+        String newToken = jwtService.generateToken("testuser");
+        assertTrue(jwtService.validateToken(oldToken));
+        assertTrue(jwtService.validateToken(newToken));
+
+        jwtService.rotate("second_256_bit_secret_key_second_256_bit_key_");
+        assertFalse(jwtService.validateToken(oldToken));
+        assertTrue(jwtService.validateToken(newToken));
+    }
+}
@@ -2,21 +2,44 @@ package com.app.prueba.services;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.app.prueba.dto.CardView;
+import com.app.prueba.dto.CollectionVersion;
+import com.app.prueba.dto.UserView;
 import com.app.prueba.models.Cards;
+import com.app.prueba.models.Role;
 import com.app.prueba.models.User;
+import com.app.prueba.models.UserCards;
 import com.app.prueba.repositories.CardRepository;
+import com.app.prueba.repositories.UserCardsRepository;
 import com.app.prueba.repositories.UserRepository;
+import com.app.prueba.security.PasswordHasher;
 import com.app.prueba.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -29,17 +52,39 @@ public class UserServiceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardService cardService;
+
     @Autowired
     private CardRepository cardRepository;
 
+    @Autowired
+    private UserCardsRepository userCardsRepository;
+
     private User testUser;
     private Cards testCard;
 
     @Autowired
     private Utils utils;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
     @BeforeEach
     public void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
         cardRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -57,12 +102,80 @@ public class UserServiceTest {
         assertEquals(1, userService.getAllUsers().size());
     }
 
+    @Test
+    @DisplayName("Test - Get all users runs one statement whatever the number of users")
+    public void testGetAllUsersStatementCount() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Role role = new Role();
+            entityManager.persist(role);
+            Cards card = cardRepository.save(utils.createCard("Statement Card " + i, "Description"));
+
+            User user = utils.createUser("Listed", "User", "listeduser" + i + "@gmail.com", "listeduser" + i,
+                    "password", utils.generateRandomPhoneNumber());
+            user.setRole(role);
+            user.setCards(card);
+            userRepository.save(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<UserView> users = userService.getAllUsers();
+        String json = objectMapper.writeValueAsString(users);
+
+        assertEquals(11, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // Read models only: no entity is loaded and the password never leaves the database
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertFalse(json.contains("password"));
+        assertNotNull(users.get(1).role());
+        assertEquals("Statement Card 0", users.get(1).cards().name());
+    }
+
+    @Test
+    @DisplayName("Test - Get user by id reads the view with its role and card in one statement")
+    public void testGetUserByIdStatementCount() throws IOException {
+        Role role = new Role();
+        entityManager.persist(role);
+        testUser.setRole(role);
+        testUser.setCards(testCard);
+        userRepository.save(testUser);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        UserView user = userService.getUserById(testUser.getId());
+        objectMapper.writeValueAsString(user);
+
+        assertEquals(testCard.getId(), user.cards().id());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // The view is read directly, no entity and no password hash is loaded
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Test - Export users as NDJSON")
+    public void testExportUsers() throws IOException {
+        User secondUser = utils.createUser("Second", "User", "seconduserservice@gmail.com",
+                "seconduserservice", "password", utils.generateRandomPhoneNumber());
+        userRepository.save(secondUser);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        userService.exportUsers(outputStream);
+
+        String[] lines = outputStream.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"username\":\"testuserservice\""));
+        assertTrue(lines[1].contains("\"username\":\"seconduserservice\""));
+        assertFalse(outputStream.toString().contains("password"));
+    }
+
     @Test
     @DisplayName("Test - Get user by id")
     public void testGetUserById() {
-        User user = userService.getUserById(testUser.getId());
+        UserView user = userService.getUserById(testUser.getId());
         assertNotNull(user);
-        assertEquals(testUser.getId(), user.getId());
+        assertEquals(testUser.getId(), user.id());
     }
 
     @Test
@@ -78,6 +191,22 @@ public class UserServiceTest {
         assertNull(userService.getUserById(-2));
     }
 
+    @Test
+    @DisplayName("Test - Get user by id is cached until it is updated")
+    public void testGetUserByIdCache() {
+        UserView cached = userService.getUserById(testUser.getId());
+        assertSame(cached, userService.getUserById(testUser.getId()));
+        assertNotNull(cacheManager.getCache("users").get(testUser.getId()));
+
+        User user = userService.findUserForUpdate(testUser.getId());
+        user.setName("Renamed");
+        // The copy being changed is not what readers get until it is saved
+        assertEquals("Test", userService.getUserById(testUser.getId()).name());
+        userService.updateUser(user);
+        assertNull(cacheManager.getCache("users").get(testUser.getId()));
+        assertEquals("Renamed", userService.getUserById(testUser.getId()).name());
+    }
+
     @Test
     @DisplayName("Test - Create user")
     public void testCreateUser() {
@@ -103,6 +232,26 @@ public class UserServiceTest {
         assertEquals("Updated", updatedUser.getName());
     }
 
+    @Test
+    @DisplayName("Test - Update user hashes a new password, even one that looks like a hash")
+    public void testUpdateUserPassword() {
+        User newUser = utils.createUser("New", "User", "hashedupdate@gmail.com", "hashedupdate", "password",
+                utils.generateRandomPhoneNumber());
+        userService.createUser(newUser);
+        String storedHash = newUser.getPassword();
+        assertTrue(passwordHasher.matches("password", storedHash));
+
+        User user = userService.findUserForUpdate(newUser.getId());
+        user.setName("Renamed");
+        assertEquals(storedHash, userService.updateUser(user).getPassword());
+
+        user = userService.findUserForUpdate(newUser.getId());
+        user.setPassword(storedHash);
+        String newHash = userService.updateUser(user).getPassword();
+        assertNotEquals(storedHash, newHash);
+        assertTrue(passwordHasher.matches(storedHash, newHash));
+    }
+
     @Test
     @DisplayName("Test - Delete user")
     public void testDeleteUser() {
@@ -133,10 +282,111 @@ public class UserServiceTest {
         assertEquals(testUser.getEmail(), user.getEmail());
     }
 
+    @Test
+    @DisplayName("Test - Cards version changes when a card is added or updated")
+    public void testGetCardsVersion() {
+        CollectionVersion empty = userService.getCardsVersion(testUser.getId());
+        assertEquals(0, empty.count());
+
+        userService.addCardToUser(testUser.getId(), testCard);
+        CollectionVersion added = userService.getCardsVersion(testUser.getId());
+        assertEquals(1, added.count());
+        assertNotEquals(empty.eTag(testUser.getId()), added.eTag(testUser.getId()));
+
+        // Cached until the card changes
+        assertSame(added, userService.getCardsVersion(testUser.getId()));
+        testCard.setDescription("Updated Description");
+        cardService.updateCard(testCard);
+        entityManager.flush();
+        assertNotEquals(added.eTag(testUser.getId()), userService.getCardsVersion(testUser.getId()).eTag(testUser.getId()));
+    }
+
+    @Test
+    @DisplayName("Test - Cards versions expire within seconds, other instances do not evict them")
+    public void testCardsVersionExpiry() {
+        Cache<Object, Object> versions = ((CaffeineCache) cacheManager.getCache("userCardVersions")).getNativeCache();
+        assertEquals(Duration.ofSeconds(5), versions.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        assertTrue(versions.policy().isRecordingStats());
+    }
+
+    @Test
+    @DisplayName("Test - Cards of a user are paged by cursor, with only the requested fields")
+    @SuppressWarnings("unchecked")
+    public void testGetCardsPage() {
+        for (int i = 0; i < 3; i++) {
+            userService.addCardToUser(testUser.getId(), utils.createCard("Paged Card " + i, "Paged"));
+        }
+
+        Map<String, Object> first = userService.getCardsPage(testUser.getId(), null, 2, null);
+        List<CardView> cards = (List<CardView>) first.get("cards");
+        assertEquals(List.of("Paged Card 0", "Paged Card 1"), cards.stream().map(CardView::name).toList());
+        assertEquals(cards.get(1).id(), first.get("nextCursor"));
+
+        Map<String, Object> last = userService.getCardsPage(testUser.getId(), (Integer) first.get("nextCursor"), 2,
+                Set.of("id", "name"));
+        List<Map<String, Object>> rest = (List<Map<String, Object>>) last.get("cards");
+        assertEquals(1, rest.size());
+        assertEquals("Paged Card 2", rest.get(0).get("name"));
+        assertEquals(Set.of("id", "name"), rest.get(0).keySet());
+        assertNull(last.get("nextCursor"));
+
+        Map<String, Object> ids = userService.getCardsPage(testUser.getId(), null, 10, Set.of("id"));
+        assertEquals(cards.get(0).id(), ((List<Map<String, Object>>) ids.get("cards")).get(0).get("id"));
+        assertEquals(Set.of("id"), ((List<Map<String, Object>>) ids.get("cards")).get(0).keySet());
+        assertEquals(3, userService.getCardsVersion(testUser.getId()).count());
+    }
+
     @Test
     @DisplayName("Test - Add Card to User")
     public void testAddCardToUser() {
         userService.addCardToUser(testUser.getId(), testCard);
         assertEquals(1, userService.findCardsByUserId(testUser.getId()).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test - Adding the same card again links it once")
+    public void testAddSameCardToUserTwice() {
+        UserCards first = userService.addCardToUser(testUser.getId(), utils.createCard("Retried Card", "Retried"));
+        UserCards retried = userService.addCardToUser(testUser.getId(), utils.createCard("Retried Card", "Retried"));
+
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(first.getCard().getId(), retried.getCard().getId());
+        assertEquals(1, userService.findCardsByUserId(testUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - Adding a stored card to another user links it")
+    public void testAddStoredCardToAnotherUser() {
+        User otherUser = userRepository.save(utils.createUser("Other", "User", "otheruserservice@gmail.com",
+                "otheruserservice", "password", utils.generateRandomPhoneNumber()));
+        UserCards first = userService.addCardToUser(testUser.getId(), utils.createCard("Shared Card", "Shared"));
+
+        UserCards other = userService.addCardToUser(otherUser.getId(), utils.createCard("Shared Card", "Shared"));
+
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(first.getCard().getId(), other.getCard().getId());
+        assertEquals(1, userService.findCardsByUserId(otherUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - Adding a different card with a stored name fails")
+    public void testAddCardToUserDuplicateName() {
+        userService.addCardToUser(testUser.getId(), utils.createCard("Named Card", "First"));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> userService.addCardToUser(testUser.getId(), utils.createCard("Named Card", "Second")));
+        assertEquals(1, userService.findCardsByUserId(testUser.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Test - A card cannot be linked to the same user twice")
+    public void testUserCardUniqueConstraint() {
+        UserCards first = userService.addCardToUser(testUser.getId(), utils.createCard("Linked Card", "Linked"));
+        UserCards second = new UserCards();
+        second.setUser(first.getUser());
+        second.setCard(first.getCard());
+
+        assertEquals(0, userCardsRepository.insertIfAbsent(testUser.getId(), first.getCard().getId()));
+        assertThrows(DataIntegrityViolationException.class, () -> userCardsRepository.saveAndFlush(second));
+    }
+}
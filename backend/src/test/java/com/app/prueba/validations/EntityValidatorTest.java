@@ -0,0 +1,37 @@
+package com.app.prueba.validations;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.app.prueba.models.Cards;
+
+import jakarta.validation.Validation;
+
+public class EntityValidatorTest {
+
+    private static EntityValidator entityValidator;
+
+    @BeforeAll
+    public static void setUp() {
+        entityValidator = new EntityValidator(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private static Cards card(String name) {
+        Cards card = new Cards();
+        card.setName(name);
+        return card;
+    }
+
+    @Test
+    @DisplayName("Test - Violations are returned by field")
+    public void testValidate() {
+        assertEquals(Map.of(), entityValidator.validate(card("Valid Card")));
+        assertEquals(Map.of("name", "Name must be at least 3 characters"), entityValidator.validate(card("Ab")));
+    }
+
+}